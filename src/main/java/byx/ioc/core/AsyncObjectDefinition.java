@@ -0,0 +1,54 @@
+package byx.ioc.core;
+
+import byx.ioc.util.FutureUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 异步实例化和初始化的ObjectDefinition，适用于需要等待I/O的对象（例如加载模型文件、读取大型配置文件）
+ *
+ * 在并发模式的容器中通过getObjectAsync或preInstantiate创建单例对象时，
+ * 容器不会占用线程等待getInstanceAsync和doInitAsync完成，因此互不依赖的对象的I/O可以重叠进行。
+ * 实例化完成后，对象会先放入二级缓存，然后调用doInitAsync：在doInitAsync返回之前，
+ * 当前线程可以通过二级缓存获取该对象，从而解决循环依赖。
+ * doInitAsync返回的CompletionStage在其他线程中继续执行时，该线程获取的其他对象如果需要该对象，
+ * 同样通过二级缓存获取；而直接获取该对象会等待初始化完成，因此初始化过程中应直接使用doInitAsync的参数。
+ *
+ * 通过getObject同步获取对象，或者对象被ObjectCallback包装时，按照同步方式等待实例化和初始化完成
+ *
+ * @author byx
+ */
+public interface AsyncObjectDefinition extends ObjectDefinition {
+    /**
+     * 异步实例化
+     * @param params 实例化依赖项
+     * @return 实例化的对象
+     */
+    CompletionStage<Object> getInstanceAsync(Object[] params);
+
+    /**
+     * 异步初始化
+     * @param obj 实例化后的对象
+     * @return 初始化完成的通知
+     */
+    default CompletionStage<Void> doInitAsync(Object obj) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * 同步实例化：等待getInstanceAsync完成
+     */
+    @Override
+    default Object getInstance(Object[] params) {
+        return FutureUtils.join(getInstanceAsync(params));
+    }
+
+    /**
+     * 同步初始化：等待doInitAsync完成
+     */
+    @Override
+    default void doInit(Object obj) {
+        FutureUtils.join(doInitAsync(obj));
+    }
+}
@@ -0,0 +1,110 @@
+package byx.ioc.core;
+
+/**
+ * 在初始化和包装对象之后回调ObjectCallback的ObjectDefinition
+ * 回调链在创建时确定，不依赖具体的容器实例，因此可以被由同一个模板创建的所有容器共用，
+ * 容器在调用doInit和doWrap时传入自身作为回调上下文中的容器
+ *
+ * @author byx
+ */
+class CallbackObjectDefinition implements ObjectDefinition {
+    private final ObjectDefinition definition;
+    private final String id;
+    private final ObjectCallback[] initCallbacks;
+    private final ObjectCallback[] wrapCallbacks;
+    private final Container container;
+
+    /**
+     * @param definition 原始ObjectDefinition
+     * @param id 对象id
+     * @param initCallbacks 需要回调afterObjectInit的ObjectCallback
+     * @param wrapCallbacks 需要回调afterObjectWrap的ObjectCallback
+     * @param container 直接调用doInit和doWrap时使用的容器，可以为null
+     */
+    CallbackObjectDefinition(ObjectDefinition definition, String id,
+                             ObjectCallback[] initCallbacks, ObjectCallback[] wrapCallbacks,
+                             Container container) {
+        this.definition = definition;
+        this.id = id;
+        this.initCallbacks = initCallbacks;
+        this.wrapCallbacks = wrapCallbacks;
+        this.container = container;
+    }
+
+    @Override
+    public Dependency[] getInstanceDependencies() {
+        return definition.getInstanceDependencies();
+    }
+
+    @Override
+    public Class<?> getType() {
+        return definition.getType();
+    }
+
+    @Override
+    public Scope getScope() {
+        return definition.getScope();
+    }
+
+    @Override
+    public int getOrder() {
+        return definition.getOrder();
+    }
+
+    @Override
+    public Object getInstance(Object[] params) {
+        return definition.getInstance(params);
+    }
+
+    /**
+     * 不经过容器直接调用时，初始化回调和包装回调分别使用各自的上下文
+     */
+    @Override
+    public void doInit(Object obj) {
+        doInit(createContext(container, obj), obj);
+    }
+
+    @Override
+    public Object doWrap(Object obj) {
+        return doWrap(createContext(container, obj), obj);
+    }
+
+    /**
+     * 创建对象的回调上下文，容器创建对象时只调用一次，初始化回调和包装回调共用该上下文
+     */
+    ObjectCallbackContext createContext(Container container, Object obj) {
+        return new ObjectCallbackContext(obj, container, definition, id);
+    }
+
+    /**
+     * 初始化对象，然后回调所有ObjectCallback的afterObjectInit方法
+     */
+    void doInit(ObjectCallbackContext ctx, Object obj) {
+        definition.doInit(obj);
+        for (ObjectCallback oc : initCallbacks) {
+            oc.afterObjectInit(ctx);
+        }
+    }
+
+    /**
+     * 包装对象，然后回调所有ObjectCallback的afterObjectWrap方法，每个回调器包装后的对象依次更新到上下文中
+     * 回调结束后上下文恢复为初始化后的对象，因此包装早于初始化回调执行时（循环依赖中的早期引用），
+     * afterObjectInit中获取的仍然是初始化后的对象
+     */
+    Object doWrap(ObjectCallbackContext ctx, Object obj) {
+        Object wrapped = definition.doWrap(obj);
+        if (wrapCallbacks.length == 0) {
+            return wrapped;
+        }
+
+        ctx.setObject(wrapped);
+        try {
+            for (ObjectCallback oc : wrapCallbacks) {
+                ctx.setObject(oc.afterObjectWrap(ctx));
+            }
+            return ctx.getObject();
+        } finally {
+            ctx.setObject(obj);
+        }
+    }
+}
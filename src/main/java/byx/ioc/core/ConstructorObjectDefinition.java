@@ -0,0 +1,84 @@
+package byx.ioc.core;
+
+import byx.ioc.exception.ConstructorNotFoundException;
+
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * 通过构造函数创建对象的ObjectDefinition
+ * 在创建时为构造函数生成实例化器，实例化对象时直接调用构造函数，不经过反射
+ *
+ * @author byx
+ */
+public class ConstructorObjectDefinition implements ObjectDefinition {
+    private final Class<?> type;
+    private final Dependency[] dependencies;
+    private final Function<Object[], Object> instantiator;
+
+    /**
+     * 使用参数个数与依赖项个数相同的构造函数创建对象
+     * @param type 对象类型
+     * @param dependencies 构造函数参数对应的依赖项
+     */
+    public ConstructorObjectDefinition(Class<?> type, Dependency... dependencies) {
+        this(type, findConstructor(type, dependencies.length), dependencies);
+    }
+
+    /**
+     * 使用指定参数类型的构造函数创建对象
+     * @param type 对象类型
+     * @param parameterTypes 构造函数参数类型
+     * @param dependencies 构造函数参数对应的依赖项
+     */
+    public ConstructorObjectDefinition(Class<?> type, Class<?>[] parameterTypes, Dependency... dependencies) {
+        this(type, getConstructor(type, parameterTypes), dependencies);
+    }
+
+    private ConstructorObjectDefinition(Class<?> type, Constructor<?> constructor, Dependency[] dependencies) {
+        if (constructor.getParameterCount() != dependencies.length) {
+            throw new ConstructorNotFoundException(type, dependencies.length);
+        }
+        this.type = type;
+        this.dependencies = dependencies;
+        try {
+            this.instantiator = Instantiators.create(constructor);
+        } catch (ReflectiveOperationException e) {
+            throw new ConstructorNotFoundException(type, e);
+        }
+    }
+
+    private static Constructor<?> findConstructor(Class<?> type, int parameterCount) {
+        Constructor<?>[] constructors = Arrays.stream(type.getDeclaredConstructors())
+                .filter(c -> c.getParameterCount() == parameterCount)
+                .toArray(Constructor[]::new);
+        if (constructors.length != 1) {
+            throw new ConstructorNotFoundException(type, parameterCount);
+        }
+        return constructors[0];
+    }
+
+    private static Constructor<?> getConstructor(Class<?> type, Class<?>[] parameterTypes) {
+        try {
+            return type.getDeclaredConstructor(parameterTypes);
+        } catch (NoSuchMethodException e) {
+            throw new ConstructorNotFoundException(type, e);
+        }
+    }
+
+    @Override
+    public Class<?> getType() {
+        return type;
+    }
+
+    @Override
+    public Dependency[] getInstanceDependencies() {
+        return dependencies;
+    }
+
+    @Override
+    public Object getInstance(Object[] params) {
+        return instantiator.apply(params);
+    }
+}
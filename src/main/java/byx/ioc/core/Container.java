@@ -1,9 +1,21 @@
 package byx.ioc.core;
 
+import byx.ioc.exception.MultiTypeMatchException;
+import byx.ioc.exception.NotPooledException;
+import byx.ioc.exception.TypeNotFoundException;
+
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * IOC容器
+ * 异步获取、对象句柄、对象池和线程作用域相关的方法都提供了基于getObject的默认实现，
+ * 其他容器实现只需要实现基本方法即可
  *
  * @author byx
  */
@@ -54,6 +66,132 @@ public interface Container {
      */
     <T> T getObject(String id, Class<T> type);
 
+    /**
+     * 异步获取指定id的对象，在公共ForkJoinPool中创建对象及其尚未创建的依赖项
+     * @param id id
+     * @param <T> 对象类型
+     * @return 对象实例的Future
+     */
+    default <T> CompletableFuture<T> getObjectAsync(String id) {
+        return getObjectAsync(id, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 异步获取指定id的对象，在指定的Executor中创建对象及其尚未创建的依赖项
+     * @param id id
+     * @param executor 用于创建对象的Executor
+     * @param <T> 对象类型
+     * @return 对象实例的Future
+     */
+    default <T> CompletableFuture<T> getObjectAsync(String id, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> getObject(id), executor);
+    }
+
+    /**
+     * 异步获取指定类型的对象，在公共ForkJoinPool中创建对象及其尚未创建的依赖项
+     * @param type 对象类型
+     * @param <T> 对象类型
+     * @return 对象实例的Future
+     */
+    default <T> CompletableFuture<T> getObjectAsync(Class<T> type) {
+        return getObjectAsync(type, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 异步获取指定类型的对象，在指定的Executor中创建对象及其尚未创建的依赖项
+     * @param type 对象类型
+     * @param executor 用于创建对象的Executor
+     * @param <T> 对象类型
+     * @return 对象实例的Future
+     */
+    default <T> CompletableFuture<T> getObjectAsync(Class<T> type, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> getObject(type), executor);
+    }
+
+    /**
+     * 获取指定id和类型的对象句柄
+     * 对象id在创建句柄时被解析，之后通过句柄获取对象时不再需要查找id
+     * @param id id
+     * @param type 对象类型
+     * @param <T> 对象类型
+     * @return 对象句柄
+     */
+    default <T> ObjectHandle<T> handle(String id, Class<T> type) {
+        return new ObjectHandle<>() {
+            @Override
+            public T get() {
+                return getObject(id, type);
+            }
+
+            @Override
+            public String getId() {
+                return id;
+            }
+        };
+    }
+
+    /**
+     * 获取指定类型的对象句柄
+     * 默认实现遍历所有对象定义查找唯一匹配的对象id
+     * @param type 对象类型
+     * @param <T> 对象类型
+     * @return 对象句柄
+     */
+    default <T> ObjectHandle<T> handle(Class<T> type) {
+        List<String> ids = getObjectIds().stream()
+                .filter(id -> type.isAssignableFrom(getObjectDefinition(id).getType()))
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            throw new TypeNotFoundException(type);
+        }
+        if (ids.size() > 1) {
+            throw new MultiTypeMatchException(type);
+        }
+        return handle(ids.get(0), type);
+    }
+
+    /**
+     * 从对象池中借出对象，对象池已满时一直等待
+     * 使用完后调用ObjectLease的close方法归还对象
+     * @param id 对象池作用域的对象id
+     * @param <T> 对象类型
+     * @return 借出的对象
+     * @see Scope#pooled(int)
+     */
+    default <T> ObjectLease<T> lease(String id) {
+        throw new NotPooledException(id);
+    }
+
+    /**
+     * 从对象池中借出对象，对象池已满时最多等待指定时间
+     * @param id 对象池作用域的对象id
+     * @param timeout 等待时间
+     * @param unit 时间单位
+     * @param <T> 对象类型
+     * @return 借出的对象
+     */
+    default <T> ObjectLease<T> lease(String id, long timeout, TimeUnit unit) {
+        throw new NotPooledException(id);
+    }
+
+    /**
+     * 获取对象池的使用情况
+     * @param id 对象池作用域的对象id
+     * @return 对象池使用情况
+     */
+    default PoolMetrics getPoolMetrics(String id) {
+        throw new NotPooledException(id);
+    }
+
+    /**
+     * 清除当前线程的所有线程作用域对象，下次在当前线程中获取时重新创建
+     * 线程结束使用容器时（例如线程池中的任务执行完毕）应调用该方法，避免对象泄漏
+     * @see Scope#thread()
+     */
+    default void clearThreadObjects() {
+
+    }
+
     /**
      * 获取指定类型的所有对象
      * @param type 对象类型
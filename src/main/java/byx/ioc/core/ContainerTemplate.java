@@ -0,0 +1,583 @@
+package byx.ioc.core;
+
+import byx.ioc.exception.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 容器模板：预先编译好的对象定义
+ *
+ * 创建模板时对所有ObjectDefinition进行一次校验和编译，包括对象编号、作用域、类型索引、
+ * 实例化依赖图和对象创建顺序（同时完成循环依赖检测），之后通过newContainer创建的容器共用这些编译结果，
+ * 只需要为每个容器分配新的对象存储空间，适用于需要创建大量相同结构容器的场景（例如每个租户一个容器）
+ *
+ * 模板创建后不可修改，由模板创建的容器已经冻结，不能再注册对象
+ *
+ * @author byx
+ */
+public class ContainerTemplate {
+    /**
+     * 所有ObjectDefinition
+     */
+    final Map<String, ObjectDefinition> definitions;
+
+    /**
+     * 父容器，没有父容器时为null
+     */
+    final Container parent;
+
+    /**
+     * 本地对象的个数，编号在[0, size)之间的对象为本地对象，
+     * 其余编号为本地对象依赖的父容器对象，这些对象每次都通过父容器的ObjectHandle获取
+     */
+    final int size;
+
+    /**
+     * 所有对象id，下标为对象编号
+     */
+    String[] ids;
+
+    /**
+     * 对象id -> 对象编号
+     */
+    final Map<String, Integer> indexes;
+
+    /**
+     * 所有ObjectDefinition，下标为对象编号
+     */
+    ObjectDefinition[] objectDefinitions;
+
+    /**
+     * 每个对象是否为非单例作用域，下标为对象编号
+     */
+    boolean[] nonSingletons;
+
+    /**
+     * 每个对象是否为线程作用域，下标为对象编号
+     */
+    boolean[] threadScoped;
+
+    /**
+     * 对象池作用域的对象池容量，下标为对象编号，其他作用域为0
+     */
+    int[] poolSizes;
+
+    /**
+     * 实例化依赖图的邻接表，只包含需要在实例化之前创建的依赖项
+     */
+    int[][] instanceDependencies;
+
+    /**
+     * 每个对象的实例化参数，按参数顺序保存：
+     * 非负数为直接注入的对象编号，负数k表示特殊参数parameterSlots[-1 - k]
+     * 没有特殊参数的对象与instanceDependencies共用同一个数组
+     */
+    int[][] parameters;
+
+    /**
+     * 所有特殊参数
+     */
+    ParameterSlot[] parameterSlots;
+
+    /**
+     * 对象编号的拓扑序列，每个对象都排在它的实例化依赖项之后
+     */
+    int[] creationOrder;
+
+    /**
+     * 类型索引：类型 -> 该类型（包括父类和接口）对应的所有对象编号
+     */
+    private final Map<Class<?>, List<Integer>> typeIndex = new HashMap<>();
+
+    /**
+     * 缓存每个类型的解析结果，被所有由该模板创建的容器共享
+     */
+    private final Map<Class<?>, int[]> typeResolutions = new ConcurrentHashMap<>();
+
+    /**
+     * 缓存每个类型在父容器中的解析结果，即匹配该类型且未被本地覆盖的父容器对象id，第一次按类型查找父容器时计算
+     */
+    private final Map<Class<?>, String[]> parentTypeResolutions = new ConcurrentHashMap<>();
+
+    /**
+     * 引用的父容器对象id -> 对象编号
+     */
+    private final Map<String, Integer> parentIdIndexes = new HashMap<>();
+
+    /**
+     * 编译对象定义
+     * @param definitions 对象id -> 对象定义
+     */
+    ContainerTemplate(Map<String, ObjectDefinition> definitions) {
+        this(definitions, null);
+    }
+
+    /**
+     * 编译对象定义，本地找不到的依赖项从父容器中查找
+     * @param definitions 对象id -> 对象定义
+     * @param parent 父容器，可以为null
+     */
+    ContainerTemplate(Map<String, ObjectDefinition> definitions, Container parent) {
+        this.definitions = Collections.unmodifiableMap(new HashMap<>(definitions));
+        this.parent = parent;
+
+        // 为所有对象编号
+        int n = definitions.size();
+        size = n;
+        ids = this.definitions.keySet().toArray(new String[0]);
+        indexes = new HashMap<>(n * 2);
+        objectDefinitions = new ObjectDefinition[n];
+        nonSingletons = new boolean[n];
+        threadScoped = new boolean[n];
+        poolSizes = new int[n];
+        for (int i = 0; i < n; ++i) {
+            indexes.put(ids[i], i);
+            objectDefinitions[i] = this.definitions.get(ids[i]);
+            Scope scope = objectDefinitions[i].getScope();
+            nonSingletons[i] = scope.getKind() != Scope.Kind.SINGLETON;
+            threadScoped[i] = scope.getKind() == Scope.Kind.THREAD;
+            if (scope.getKind() == Scope.Kind.POOLED) {
+                poolSizes[i] = scope.getPoolSize();
+            }
+        }
+
+        buildTypeIndex();
+        checkCircularDependency();
+    }
+
+    /**
+     * 编译容器中当前注册的所有对象定义
+     * @param container 容器
+     * @return 容器模板
+     */
+    public static ContainerTemplate compile(Container container) {
+        Map<String, ObjectDefinition> definitions = new HashMap<>();
+        for (String id : container.getObjectIds()) {
+            definitions.put(id, container.getObjectDefinition(id));
+        }
+        return new ContainerTemplate(definitions);
+    }
+
+    /**
+     * 创建非并发模式的容器
+     * @return 容器
+     */
+    public Container newContainer() {
+        return newContainer(false);
+    }
+
+    /**
+     * 创建容器
+     * @param concurrent 是否为并发模式
+     * @return 容器
+     */
+    public Container newContainer(boolean concurrent) {
+        return new SimpleContainer(this, concurrent);
+    }
+
+    /**
+     * 获取模板中所有对象id的集合
+     * @return id集合
+     */
+    public Set<String> getObjectIds() {
+        return definitions.keySet();
+    }
+
+    /**
+     * 构建类型索引
+     * 把每个对象的类型及其所有父类和接口都映射到该对象的编号
+     */
+    private void buildTypeIndex() {
+        for (int i = 0; i < size; ++i) {
+            for (Class<?> type : getSuperTypes(objectDefinitions[i].getType())) {
+                typeIndex.computeIfAbsent(type, t -> new ArrayList<>()).add(i);
+            }
+        }
+    }
+
+    /**
+     * 获取类型本身及其所有父类和接口
+     * 接口的getSuperclass返回null，因此非基本类型都需要单独加入Object
+     */
+    private static Set<Class<?>> getSuperTypes(Class<?> type) {
+        Set<Class<?>> result = new HashSet<>();
+        if (!type.isPrimitive()) {
+            result.add(Object.class);
+        }
+        Deque<Class<?>> stack = new ArrayDeque<>();
+        stack.push(type);
+        while (!stack.isEmpty()) {
+            Class<?> cur = stack.pop();
+            if (result.add(cur)) {
+                if (cur.getSuperclass() != null) {
+                    stack.push(cur.getSuperclass());
+                }
+                for (Class<?> i : cur.getInterfaces()) {
+                    stack.push(i);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取类型对应的所有对象编号
+     * 数组类型存在协变关系，无法通过类型索引查找，因此遍历所有对象定义
+     */
+    int[] resolveType(Class<?> type) {
+        return typeResolutions.computeIfAbsent(type, t -> {
+            if (t.isArray()) {
+                return IntStream.range(0, size)
+                        .filter(i -> t.isAssignableFrom(objectDefinitions[i].getType()))
+                        .toArray();
+            }
+            return typeIndex.getOrDefault(t, Collections.emptyList()).stream()
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        });
+    }
+
+    /**
+     * 获取父容器中匹配类型且未被本地覆盖的所有对象id
+     * 父容器为SimpleContainer时直接使用父容器的类型索引，否则遍历父容器中的所有对象定义
+     */
+    String[] resolveParentType(Class<?> type) {
+        if (parent == null) {
+            return new String[0];
+        }
+        return parentTypeResolutions.computeIfAbsent(type, t -> {
+            Stream<String> candidates = parent instanceof SimpleContainer
+                    ? Arrays.stream(((SimpleContainer) parent).resolveIds(t))
+                    : parent.getObjectIds().stream().filter(id -> t.isAssignableFrom(parent.getObjectDefinition(id).getType()));
+            return candidates.filter(id -> !indexes.containsKey(id)).toArray(String[]::new);
+        });
+    }
+
+    /**
+     * 获取类型对应的对象编号
+     */
+    int getTypeIndex(Class<?> type) {
+        int[] candidates = resolveType(type);
+
+        if (candidates.length == 0) {
+            throw new TypeNotFoundException(type);
+        } else if (candidates.length > 1) {
+            throw new MultiTypeMatchException(type);
+        }
+
+        return candidates[0];
+    }
+
+    /**
+     * 获取类型在父容器中对应的对象id，被本地覆盖的对象不参与匹配
+     */
+    String getParentTypeId(Class<?> type) {
+        String[] candidates = resolveParentType(type);
+
+        if (candidates.length == 0) {
+            throw new TypeNotFoundException(type);
+        } else if (candidates.length > 1) {
+            throw new MultiTypeMatchException(type);
+        }
+
+        return candidates[0];
+    }
+
+    /**
+     * 构建对象的实例化依赖图和实例化参数
+     * 图中的节点为对象id的编号，instanceDependencies[i]按参数顺序保存第i个对象的实例化依赖项的编号，
+     * Provider等特殊参数的目标对象不需要在实例化之前创建，因此不加入依赖图，也不参与循环依赖检测
+     * Dependency.all注入的对象列表例外，列表中的所有对象都会加入依赖图
+     * 本地对象依赖的父容器对象在本地对象之后依次编号
+     */
+    private void buildDependencyGraph() {
+        int[][] adjs = new int[size][];
+        int[][] params = new int[size][];
+        List<ParameterSlot> slots = new ArrayList<>();
+        List<ObjectDefinition> parentDefinitions = new ArrayList<>();
+        List<String> parentIds = new ArrayList<>();
+        for (int i = 0; i < size; ++i) {
+            Dependency[] dependencies = objectDefinitions[i].getInstanceDependencies();
+            int[] param = new int[dependencies.length];
+            List<Integer> edges = null;
+            for (int j = 0; j < dependencies.length; ++j) {
+                Dependency dependency = dependencies[j];
+                if (dependency.getKind() == Dependency.Kind.ALL) {
+                    ParameterSlot slot = createListParameterSlot(dependency, i, parentDefinitions, parentIds);
+                    slots.add(slot);
+                    param[j] = -slots.size();
+                    edges = getEdges(edges, param, j);
+                    for (int target : slot.targets) {
+                        edges.add(target);
+                    }
+                    continue;
+                }
+
+                int index = getDependencyIndex(dependency, parentDefinitions, parentIds);
+                if (dependency.getKind() == Dependency.Kind.OBJECT) {
+                    param[j] = index;
+                    if (edges != null) {
+                        edges.add(index);
+                    }
+                } else {
+                    slots.add(createParameterSlot(dependency, index));
+                    param[j] = -slots.size();
+                    edges = getEdges(edges, param, j);
+                }
+            }
+            params[i] = param;
+            adjs[i] = edges == null ? param : edges.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        int n = size + parentDefinitions.size();
+        if (n > size) {
+            ids = Arrays.copyOf(ids, n);
+            objectDefinitions = Arrays.copyOf(objectDefinitions, n);
+            nonSingletons = Arrays.copyOf(nonSingletons, n);
+            threadScoped = Arrays.copyOf(threadScoped, n);
+            poolSizes = Arrays.copyOf(poolSizes, n);
+            adjs = Arrays.copyOf(adjs, n);
+            params = Arrays.copyOf(params, n);
+            for (int i = size; i < n; ++i) {
+                ids[i] = parentIds.get(i - size);
+                objectDefinitions[i] = parentDefinitions.get(i - size);
+                nonSingletons[i] = true;
+                adjs[i] = new int[0];
+                params[i] = adjs[i];
+            }
+        }
+        instanceDependencies = adjs;
+        parameters = params;
+        parameterSlots = slots.toArray(new ParameterSlot[0]);
+    }
+
+    /**
+     * 第一次遇到特殊参数时，把之前的普通参数复制到依赖图的边中，此后依赖图的边与实例化参数分开保存
+     */
+    private static List<Integer> getEdges(List<Integer> edges, int[] param, int count) {
+        if (edges != null) {
+            return edges;
+        }
+        edges = new ArrayList<>();
+        for (int j = 0; j < count; ++j) {
+            edges.add(param[j]);
+        }
+        return edges;
+    }
+
+    /**
+     * 创建对象列表参数
+     * 列表成员包括所有匹配的本地对象，以及父容器中未被本地覆盖的匹配对象，
+     * 按照顺序值和id排序。声明该依赖的对象本身不属于列表成员，否则组合对象会依赖自身
+     */
+    private ParameterSlot createListParameterSlot(Dependency dependency, int owner, List<ObjectDefinition> parentDefinitions, List<String> parentIds) {
+        Class<?> type = dependency.getType();
+        if (type == null) {
+            throw new BadDependencyException(dependency);
+        }
+
+        List<ListMember> members = new ArrayList<>();
+        for (int index : resolveType(type)) {
+            if (index == owner) {
+                continue;
+            }
+            members.add(new ListMember(index, objectDefinitions[index].getOrder(), ids[index]));
+        }
+        for (String id : resolveParentType(type)) {
+            int index = getDependencyIndex(Dependency.id(id), parentDefinitions, parentIds);
+            members.add(new ListMember(index, parent.getObjectDefinition(id).getOrder(), id));
+        }
+
+        members.sort(Comparator.<ListMember>comparingInt(m -> m.order).thenComparing(m -> m.id));
+        return new ParameterSlot(type, members.stream().mapToInt(m -> m.index).toArray());
+    }
+
+    /**
+     * 对象列表的成员
+     */
+    private static class ListMember {
+        private final int index;
+        private final int order;
+        private final String id;
+
+        private ListMember(int index, int order, String id) {
+            this.index = index;
+            this.order = order;
+            this.id = id;
+        }
+    }
+
+    /**
+     * 创建特殊参数
+     * 延迟初始化代理只支持接口类型，并且目标对象必须实现该接口（父容器中的对象在第一次调用时检查）
+     */
+    private ParameterSlot createParameterSlot(Dependency dependency, int index) {
+        if (dependency.getKind() != Dependency.Kind.LAZY) {
+            return new ParameterSlot(dependency.getKind(), index, null);
+        }
+
+        Class<?> type = dependency.getType();
+        if (type == null || !type.isInterface()) {
+            throw new BadDependencyException(dependency);
+        }
+        if (index < size && !type.isAssignableFrom(objectDefinitions[index].getType())) {
+            throw new TypeNotFoundException(type);
+        }
+        return new ParameterSlot(Dependency.Kind.LAZY, index, type);
+    }
+
+    /**
+     * 获取依赖项对应的对象编号
+     * 本地找不到的依赖项从父容器中解析，并为其分配一个编号
+     */
+    private int getDependencyIndex(Dependency dependency, List<ObjectDefinition> parentDefinitions, List<String> parentIds) {
+        if (dependency.getId() != null) {
+            String id = dependency.getId();
+            Integer index = indexes.get(id);
+            if (index != null) {
+                return index;
+            }
+            if (parent == null) {
+                throw new IdNotFoundException(id);
+            }
+            return parentIdIndexes.computeIfAbsent(id, k -> {
+                parentIds.add(id);
+                parentDefinitions.add(new ParentObjectDefinition(parent.handle(id, Object.class)));
+                return size + parentDefinitions.size() - 1;
+            });
+        } else if (dependency.getType() != null) {
+            Class<?> type = dependency.getType();
+            if (parent == null || resolveType(type).length > 0) {
+                return getTypeIndex(type);
+            }
+            return getDependencyIndex(Dependency.id(getParentTypeId(type)), parentDefinitions, parentIds);
+        }
+        throw new BadDependencyException(dependency);
+    }
+
+    /**
+     * 父容器中的对象，每次都通过父容器的ObjectHandle获取，由父容器负责缓存和作用域
+     */
+    private static class ParentObjectDefinition implements ObjectDefinition {
+        private final ObjectHandle<?> handle;
+
+        private ParentObjectDefinition(ObjectHandle<?> handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public Class<?> getType() {
+            return Object.class;
+        }
+
+        @Override
+        public Scope getScope() {
+            return Scope.prototype();
+        }
+
+        @Override
+        public Object getInstance(Object[] params) {
+            return handle.get();
+        }
+    }
+
+    /**
+     * 循环依赖检测
+     *
+     * 步骤：
+     * 1. 调用容器中所有ObjectDefinition的getInstanceDependencies，获取所有对象的实例化依赖项，
+     *    将依赖关系转换成一张有向图（邻接表）
+     * 2. 使用Tarjan算法求出图中所有强连通分量，时间复杂度为O(V+E)
+     * 3. 如果某个强连通分量包含多个节点，或者包含自环，说明这些节点构成了循环依赖
+     * 4. 否则依赖图是有向无环图，强连通分量的弹出顺序即为对象的创建顺序
+     */
+    private void checkCircularDependency() {
+        buildDependencyGraph();
+
+        int n = ids.length;
+        int[][] adj = instanceDependencies;
+
+        // dfn存储节点的访问序号，low存储节点能够回溯到的最小访问序号
+        int[] dfn = new int[n];
+        int[] low = new int[n];
+        Arrays.fill(dfn, -1);
+
+        // stack存储当前还未归入强连通分量的节点
+        // callStack和next模拟递归调用栈，next[v]表示节点v下一条待访问的边
+        int[] stack = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] callStack = new int[n];
+        int[] next = new int[n];
+        int sp = 0, csp = 0, counter = 0;
+        int[] order = new int[n];
+        int k = 0;
+
+        List<String> circularIds = new ArrayList<>();
+        for (int s = 0; s < n; ++s) {
+            if (dfn[s] >= 0) {
+                continue;
+            }
+
+            dfn[s] = low[s] = counter++;
+            stack[sp++] = s;
+            onStack[s] = true;
+            callStack[csp++] = s;
+
+            while (csp > 0) {
+                int v = callStack[csp - 1];
+                if (next[v] < adj[v].length) {
+                    int w = adj[v][next[v]++];
+                    if (dfn[w] < 0) {
+                        dfn[w] = low[w] = counter++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        callStack[csp++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], dfn[w]);
+                    }
+                    continue;
+                }
+
+                // 节点v的所有边都已访问完
+                csp--;
+                if (csp > 0) {
+                    int u = callStack[csp - 1];
+                    low[u] = Math.min(low[u], low[v]);
+                }
+
+                // v是强连通分量的根节点，弹出该强连通分量
+                if (low[v] == dfn[v]) {
+                    order[k++] = v;
+                    int top = sp;
+                    do {
+                        onStack[stack[--sp]] = false;
+                    } while (stack[sp] != v);
+
+                    if (top - sp > 1 || hasSelfLoop(adj[v], v)) {
+                        for (int i = sp; i < top; ++i) {
+                            circularIds.add(ids[stack[i]]);
+                        }
+                    }
+                }
+            }
+        }
+
+        // 存在强连通分量，说明依赖图中存在环路，即发生了循环依赖
+        if (!circularIds.isEmpty()) {
+            throw new CircularDependencyException(circularIds);
+        }
+        creationOrder = order;
+    }
+
+    private static boolean hasSelfLoop(int[] adj, int v) {
+        for (int w : adj) {
+            if (w == v) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -6,20 +6,104 @@ package byx.ioc.core;
  * @author byx
  */
 public class Dependency {
+    /**
+     * 依赖项的注入方式
+     */
+    enum Kind {
+        /**
+         * 注入对象本身，在实例化之前创建
+         */
+        OBJECT,
+
+        /**
+         * 注入对象的Provider，第一次调用Provider的get方法时才获取对象
+         */
+        PROVIDER,
+
+        /**
+         * 注入实现了指定接口的延迟初始化代理，第一次调用代理的方法时才获取对象
+         */
+        LAZY,
+
+        /**
+         * 注入指定类型的所有对象组成的列表，所有对象在实例化之前创建
+         */
+        ALL
+    }
+
     private final String id;
     private final Class<?> type;
+    private final Kind kind;
 
-    private Dependency(String id, Class<?> type) {
+    private Dependency(String id, Class<?> type, Kind kind) {
         this.id = id;
         this.type = type;
+        this.kind = kind;
     }
 
     public static Dependency id(String id) {
-        return new Dependency(id, null);
+        return new Dependency(id, null, Kind.OBJECT);
     }
 
     public static Dependency type(Class<?> type) {
-        return new Dependency(null, type);
+        return new Dependency(null, type, Kind.OBJECT);
+    }
+
+    /**
+     * 注入指定id对象的Provider
+     * Provider依赖不参与实例化依赖图，因此可以打破构造函数之间的循环依赖，
+     * 目标对象在第一次调用Provider的get方法时才被获取
+     * @param id id
+     * @return 依赖项
+     * @see Provider
+     */
+    public static Dependency provider(String id) {
+        return new Dependency(id, null, Kind.PROVIDER);
+    }
+
+    /**
+     * 注入指定类型对象的Provider
+     * @param type 类型
+     * @return 依赖项
+     * @see #provider(String)
+     */
+    public static Dependency provider(Class<?> type) {
+        return new Dependency(null, type, Kind.PROVIDER);
+    }
+
+    /**
+     * 注入指定类型对象的延迟初始化代理
+     * 代理实现了type接口，第一次调用代理的方法时才获取目标对象，之后直接委托给目标对象。
+     * 与Provider相同，延迟初始化依赖不参与实例化依赖图，可以打破构造函数之间的循环依赖
+     * @param type 接口类型
+     * @return 依赖项
+     */
+    public static Dependency lazy(Class<?> type) {
+        return new Dependency(null, type, Kind.LAZY);
+    }
+
+    /**
+     * 注入指定id对象的延迟初始化代理
+     * @param id id
+     * @param type 代理实现的接口类型
+     * @return 依赖项
+     * @see #lazy(Class)
+     */
+    public static Dependency lazy(String id, Class<?> type) {
+        return new Dependency(id, type, Kind.LAZY);
+    }
+
+    /**
+     * 注入指定类型（包括子类和实现类）的所有对象组成的不可修改列表
+     * 列表按照ObjectDefinition的getOrder从小到大排序，顺序值相同时按照id排序。
+     * 列表成员在冻结容器时确定，并且所有成员都会加入实例化依赖图，参与循环依赖检测。
+     * 子容器中的列表同时包含父容器中未被覆盖的对象
+     * 声明该依赖的对象本身即使类型匹配也不会出现在列表中
+     * @param type 类型
+     * @return 依赖项
+     */
+    public static Dependency all(Class<?> type) {
+        return new Dependency(null, type, Kind.ALL);
     }
 
     public String getId() {
@@ -30,8 +114,15 @@ public class Dependency {
         return type;
     }
 
+    Kind getKind() {
+        return kind;
+    }
+
     @Override
     public String toString() {
+        if (kind != Kind.OBJECT) {
+            return "Dependency{" + "id='" + id + '\'' + ", type=" + type + ", kind=" + kind + '}';
+        }
         return "Dependency{" + "id='" + id + '\'' + ", type=" + type + '}';
     }
 }
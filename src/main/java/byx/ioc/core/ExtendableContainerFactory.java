@@ -1,93 +1,249 @@
 package byx.ioc.core;
 
 import byx.ioc.exception.LoadExtensionException;
-import byx.ioc.util.JarUtils;
 
 import java.lang.reflect.Constructor;
-import java.net.URL;
+import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 可扩展的容器工厂
- * 该工厂在初始化时会读取当前类路径及其依赖的Jar包下的所有byx-container-extension.properties文件
+ * 默认情况下，第一次创建容器时会读取当前类路径及其依赖的Jar包下的所有byx-container-extension.properties文件
  * 然后解析该文件，读取所有ContainerCallback和ObjectCallback的全限定类名
- * 然后加载并保存这些ContainerCallback和ObjectCallback
+ * 然后加载这些扩展类（不初始化），并在工厂第一次使用时才创建扩展实例，这些实例被所有工厂共享
+ *
+ * 每个工厂可以选择自己使用的扩展：
+ * 1. 通过构造函数显式指定扩展列表，此时不会扫描类路径
+ * 2. 重写acceptExtension方法，按类名或扩展类过滤从类路径中发现的扩展
  *
  * 在调用create创建容器的过程中，首先会调用子类实现的initContainer方法对容器进行初始化
  * 然后修改容器中所有ObjectDefinition，并在适当的位置调用ContainerCallback和ObjectCallback中的回调方法
+ * 每个ObjectDefinition只会触发作用于该对象的ObjectCallback（见ObjectCallback的supports方法），
+ * 没有任何ObjectCallback作用的ObjectDefinition保持不变
+ *
+ * 需要创建大量相同结构的容器时，可以调用createTemplate创建容器模板，
+ * 上述过程只在创建模板时执行一次
  *
  * @author byx
  */
 public abstract class ExtendableContainerFactory implements ContainerFactory {
-    private static final String EXTENSION_FILE_NAME = "byx-container-extension.properties";
-    private static final String KEY_CONTAINER_CALLBACK = "containerCallback";
-    private static final String KEY_OBJECT_CALLBACK = "objectCallback";
-    private static final String DELIMITER = ",";
+    /**
+     * 从类路径中发现的扩展类，在第一次创建容器时读取扩展声明并加载，加载时不会初始化扩展类
+     * 扩展实例在第一次被某个工厂使用时创建，并被所有工厂共享
+     * 读取扩展声明失败时不保存结果，下次创建容器时重新读取
+     */
+    private static class DiscoveredExtensions {
+        private static volatile DiscoveredExtensions discovered;
+        private static final Map<Class<?>, Object> instances = new ConcurrentHashMap<>();
+
+        private final List<Class<?>> containerCallbackClasses = new ArrayList<>();
+        private final List<Class<?>> objectCallbackClasses = new ArrayList<>();
+
+        /**
+         * 加载失败的扩展：类名 -> 异常
+         */
+        private final Map<String, LoadExtensionException> failures = new LinkedHashMap<>();
+
+        private DiscoveredExtensions(ExtensionIndex index) {
+            loadClasses(index.getContainerCallbackClassNames(), ContainerCallback.class, containerCallbackClasses);
+            loadClasses(index.getObjectCallbackClassNames(), ObjectCallback.class, objectCallbackClasses);
+        }
+
+        /**
+         * 获取从类路径中发现的扩展类，第一次调用时读取扩展声明
+         * @throws LoadExtensionException 扩展声明读取失败
+         */
+        private static DiscoveredExtensions get() {
+            DiscoveredExtensions d = discovered;
+            if (d == null) {
+                synchronized (DiscoveredExtensions.class) {
+                    d = discovered;
+                    if (d == null) {
+                        d = new DiscoveredExtensions(ExtensionIndex.getInstance());
+                        discovered = d;
+                    }
+                }
+            }
+            return d;
+        }
+
+        /**
+         * 加载扩展类但不初始化，加载失败的扩展记录到failures中
+         */
+        private void loadClasses(List<String> classNames, Class<?> extensionType, List<Class<?>> result) {
+            ClassLoader classLoader = ExtendableContainerFactory.class.getClassLoader();
+            for (String className : classNames) {
+                try {
+                    Class<?> extensionClass = Class.forName(className, false, classLoader);
+                    if (!extensionType.isAssignableFrom(extensionClass)) {
+                        throw new ClassCastException(className + " is not a " + extensionType.getName());
+                    }
+                    result.add(extensionClass);
+                } catch (ClassNotFoundException | LinkageError | ClassCastException e) {
+                    failures.put(className, new LoadExtensionException(className, e));
+                }
+            }
+        }
+
+        /**
+         * 获取扩展实例，不存在则创建
+         */
+        private static Object getInstance(Class<?> extensionClass) {
+            return instances.computeIfAbsent(extensionClass, DiscoveredExtensions::newInstance);
+        }
+
+        /**
+         * 通过默认构造函数创建扩展实例
+         */
+        private static Object newInstance(Class<?> extensionClass) {
+            try {
+                Constructor<?> defaultConstructor = extensionClass.getDeclaredConstructor();
+                defaultConstructor.setAccessible(true);
+                return defaultConstructor.newInstance();
+            } catch (InvocationTargetException e) {
+                throw new LoadExtensionException(extensionClass.getName(), e.getCause());
+            } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+                throw new LoadExtensionException(extensionClass.getName(), e);
+            }
+        }
+    }
 
     /**
-     * 保存所有ContainerCallback
+     * 显式指定的ContainerCallback，为null时使用从类路径中发现的扩展
      */
-    private static final List<ContainerCallback> containerCallbacks = new ArrayList<>();
+    private final List<ContainerCallback> explicitContainerCallbacks;
 
     /**
-     * 保存所有ObjectCallback
+     * 显式指定的ObjectCallback，为null时使用从类路径中发现的扩展
      */
-    private static final List<ObjectCallback> objectCallbacks = new ArrayList<>();
+    private final List<ObjectCallback> explicitObjectCallbacks;
 
     /**
-     * 从所有Jar中加载ContainerCallback
+     * 当前工厂使用的ContainerCallback，在第一次调用create时确定
      */
-    private static void loadContainerCallbacks() {
-        try {
-            List<URL> urls = JarUtils.getJarResources(EXTENSION_FILE_NAME);
-            for (URL url : urls) {
-                Properties properties = new Properties();
-                properties.load(url.openStream());
-                String containerCallbackClassNames = (String) properties.get(KEY_CONTAINER_CALLBACK);
-                if (containerCallbackClassNames != null) {
-                    for (String containerCallbackClassName : containerCallbackClassNames.split(DELIMITER)) {
-                        Class<?> containerCallbackClass = Class.forName(containerCallbackClassName);
-                        Constructor<?> defaultConstructor = containerCallbackClass.getDeclaredConstructor();
-                        defaultConstructor.setAccessible(true);
-                        containerCallbacks.add((ContainerCallback) defaultConstructor.newInstance());
-                    }
-                }
-            }
-        } catch (Exception e) {
-            throw new LoadExtensionException(e);
-        }
+    private volatile List<ContainerCallback> containerCallbacks;
+
+    /**
+     * 当前工厂使用的ObjectCallback，在第一次调用create时确定
+     */
+    private volatile List<ObjectCallback> objectCallbacks;
+
+    /**
+     * 使用从类路径中发现的所有扩展（可通过acceptExtension方法过滤）
+     */
+    protected ExtendableContainerFactory() {
+        this.explicitContainerCallbacks = null;
+        this.explicitObjectCallbacks = null;
     }
 
     /**
-     * 从所有Jar中加载ObjectCallback
+     * 使用显式指定的扩展，不扫描类路径
+     * 传入空列表即可创建不使用任何扩展的工厂
+     * @param containerCallbacks ContainerCallback列表
+     * @param objectCallbacks ObjectCallback列表
      */
-    private static void loadObjectCallbacks() {
-        try {
-            List<URL> urls = JarUtils.getJarResources(EXTENSION_FILE_NAME);
-            for (URL url : urls) {
-                Properties properties = new Properties();
-                properties.load(url.openStream());
-                String objectCallbackClassNames = (String) properties.get(KEY_OBJECT_CALLBACK);
-                if (objectCallbackClassNames != null) {
-                    for (String objectCallbackClassName : objectCallbackClassNames.split(DELIMITER)) {
-                        Class<?> objectCallbackClass = Class.forName(objectCallbackClassName);
-                        Constructor<?> defaultConstructor = objectCallbackClass.getDeclaredConstructor();
-                        defaultConstructor.setAccessible(true);
-                        objectCallbacks.add((ObjectCallback) defaultConstructor.newInstance());
+    protected ExtendableContainerFactory(List<ContainerCallback> containerCallbacks, List<ObjectCallback> objectCallbacks) {
+        this.explicitContainerCallbacks = new ArrayList<>(containerCallbacks);
+        this.explicitObjectCallbacks = new ArrayList<>(objectCallbacks);
+    }
+
+    /**
+     * 是否使用从类路径中发现的某个扩展
+     * 子类可以重写该方法过滤不需要的扩展，只对未显式指定扩展的工厂有效
+     * 被过滤的扩展不会被初始化和实例化
+     * @param extensionClass 扩展类（尚未初始化）
+     * @return 是否使用
+     */
+    protected boolean acceptExtension(Class<?> extensionClass) {
+        return true;
+    }
+
+    /**
+     * 是否使用类路径中声明的某个扩展，先于acceptExtension(Class)调用
+     * 加载失败的扩展只能通过该方法过滤，被过滤的扩展加载失败时不会报告
+     * @param className 扩展的全限定类名
+     * @return 是否使用
+     */
+    protected boolean acceptExtension(String className) {
+        return true;
+    }
+
+    /**
+     * 是否使用从类路径中发现的某个扩展类
+     */
+    private boolean accept(Class<?> extensionClass) {
+        return acceptExtension(extensionClass.getName()) && acceptExtension(extensionClass);
+    }
+
+    /**
+     * 确定当前工厂使用的扩展并排序
+     * 如果扩展声明读取失败，或者当前工厂使用的扩展加载失败，
+     * 则抛出第一个失败的LoadExtensionException，其余失败作为suppressed异常附加，下次调用create时会重新尝试
+     */
+    private void resolveExtensions() {
+        if (objectCallbacks != null) {
+            return;
+        }
+
+        List<ContainerCallback> ccs;
+        List<ObjectCallback> ocs;
+        if (explicitObjectCallbacks != null) {
+            ccs = new ArrayList<>(explicitContainerCallbacks);
+            ocs = new ArrayList<>(explicitObjectCallbacks);
+        } else {
+            // 只创建被当前工厂接受的扩展，所有加载失败的扩展一并报告
+            DiscoveredExtensions discovered = DiscoveredExtensions.get();
+            List<LoadExtensionException> errors = new ArrayList<>();
+            discovered.failures.forEach((className, e) -> {
+                if (acceptExtension(className)) {
+                    errors.add(e);
+                }
+            });
+            ccs = new ArrayList<>();
+            for (Class<?> c : discovered.containerCallbackClasses) {
+                if (accept(c)) {
+                    try {
+                        ccs.add((ContainerCallback) DiscoveredExtensions.getInstance(c));
+                    } catch (LoadExtensionException e) {
+                        errors.add(e);
+                    }
+                }
+            }
+            ocs = new ArrayList<>();
+            for (Class<?> c : discovered.objectCallbackClasses) {
+                if (accept(c)) {
+                    try {
+                        ocs.add((ObjectCallback) DiscoveredExtensions.getInstance(c));
+                    } catch (LoadExtensionException e) {
+                        errors.add(e);
                     }
                 }
             }
-        } catch (Exception e) {
-            throw new LoadExtensionException(e);
+            if (!errors.isEmpty()) {
+                LoadExtensionException e = errors.get(0);
+                for (int i = 1; i < errors.size(); ++i) {
+                    e.addSuppressed(errors.get(i));
+                }
+                throw e;
+            }
         }
+        ccs.sort(Comparator.comparingInt(ContainerCallback::getOrder));
+        ocs.sort(Comparator.comparingInt(ObjectCallback::getOrder));
+
+        containerCallbacks = ccs;
+        objectCallbacks = ocs;
     }
 
-    static {
-        // 加载所有ContainerCallback和ObjectCallback并排序
-        loadContainerCallbacks();
-        loadObjectCallbacks();
-        containerCallbacks.sort(Comparator.comparingInt(ContainerCallback::getOrder));
-        objectCallbacks.sort(Comparator.comparingInt(ObjectCallback::getOrder));
+    /**
+     * 判断回调器是否重写了ObjectCallback中的指定方法
+     */
+    private static boolean overrides(ObjectCallback callback, String methodName) {
+        try {
+            return callback.getClass().getMethod(methodName, ObjectCallbackContext.class).getDeclaringClass() != ObjectCallback.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
     }
 
     /**
@@ -101,54 +257,71 @@ public abstract class ExtendableContainerFactory implements ContainerFactory {
     public Container create() {
         Container container = new SimpleContainer();
         initContainer(container);
+        applyExtensions(container, container);
+        return container;
+    }
+
+    /**
+     * 创建容器模板
+     * 初始化容器、回调ContainerCallback和构建ObjectCallback回调链都只在创建模板时执行一次，
+     * 之后通过模板的newContainer方法可以快速创建大量容器，这些容器共用同一组对象定义
+     * @return 容器模板
+     */
+    public ContainerTemplate createTemplate() {
+        Container container = new SimpleContainer();
+        initContainer(container);
+        applyExtensions(container, null);
+        return ContainerTemplate.compile(container);
+    }
+
+    /**
+     * 回调所有ContainerCallback，并为对象定义添加ObjectCallback回调链
+     * @param container 容器
+     * @param boundContainer 直接调用对象定义的doInit和doWrap时回调上下文中的容器
+     */
+    private void applyExtensions(Container container, Container boundContainer) {
+        resolveExtensions();
+        List<ContainerCallback> containerCallbacks = this.containerCallbacks;
+        List<ObjectCallback> objectCallbacks = this.objectCallbacks;
 
         // 回调所有ContainerCallback
         for (ContainerCallback cc : containerCallbacks) {
             cc.afterContainerInit(container);
         }
 
+        // 只保留重写了afterObjectInit/afterObjectWrap的回调器，避免无意义的调用
+        boolean[] hasInit = new boolean[objectCallbacks.size()];
+        boolean[] hasWrap = new boolean[objectCallbacks.size()];
+        for (int i = 0; i < objectCallbacks.size(); ++i) {
+            hasInit[i] = overrides(objectCallbacks.get(i), "afterObjectInit");
+            hasWrap[i] = overrides(objectCallbacks.get(i), "afterObjectWrap");
+        }
+
         for (String id : container.getObjectIds()) {
             ObjectDefinition definition = container.getObjectDefinition(id);
-            container.setObjectDefinition(id, new ObjectDefinition() {
-                @Override
-                public Dependency[] getInstanceDependencies() {
-                    return definition.getInstanceDependencies();
-                }
-
-                @Override
-                public Class<?> getType() {
-                    return definition.getType();
-                }
-
-                @Override
-                public Object getInstance(Object[] params) {
-                    return definition.getInstance(params);
-                }
-
-                @Override
-                public void doInit(Object obj) {
-                    definition.doInit(obj);
 
-                    // 回调所有ObjectCallback的afterObjectInit方法
-                    for (ObjectCallback oc : objectCallbacks) {
-                        oc.afterObjectInit(new ObjectCallbackContext(obj, container, definition, id));
+            // 筛选作用于该对象的ObjectCallback，如果没有则不需要包装ObjectDefinition
+            List<ObjectCallback> initCallbacks = new ArrayList<>();
+            List<ObjectCallback> wrapCallbacks = new ArrayList<>();
+            for (int i = 0; i < objectCallbacks.size(); ++i) {
+                ObjectCallback oc = objectCallbacks.get(i);
+                if ((hasInit[i] || hasWrap[i]) && oc.supports(id, definition.getType())) {
+                    if (hasInit[i]) {
+                        initCallbacks.add(oc);
                     }
-                }
-
-                @Override
-                public Object doWrap(Object obj) {
-                    obj = definition.doWrap(obj);
-
-                    // 回调所有ObjectCallback的afterObjectWrap方法
-                    for (ObjectCallback oc : objectCallbacks) {
-                        obj = oc.afterObjectWrap(new ObjectCallbackContext(obj, container, definition, id));
+                    if (hasWrap[i]) {
+                        wrapCallbacks.add(oc);
                     }
-
-                    return obj;
                 }
-            });
-        }
+            }
+            if (initCallbacks.isEmpty() && wrapCallbacks.isEmpty()) {
+                continue;
+            }
 
-        return container;
+            container.setObjectDefinition(id, new CallbackObjectDefinition(definition, id,
+                    initCallbacks.toArray(new ObjectCallback[0]),
+                    wrapCallbacks.toArray(new ObjectCallback[0]),
+                    boundContainer));
+        }
     }
 }
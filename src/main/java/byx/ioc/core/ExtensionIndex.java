@@ -0,0 +1,175 @@
+package byx.ioc.core;
+
+import byx.ioc.exception.LoadExtensionException;
+import byx.ioc.util.JarUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 扩展索引：当前类路径及其依赖的Jar包中声明的所有扩展类名
+ * 所有byx-container-extension.properties文件只读取和解析一次，解析结果被所有容器工厂共享
+ *
+ * 应用构建时生成的索引文件按以下顺序查找，找到后直接读取该文件，不再扫描类路径：
+ * 1. 系统属性byx.container.extension.index指定的索引文件路径
+ * 2. 类路径中的META-INF/byx-container-extension.index，只通过getResource查找一次，
+ *    得到类路径中的第一个索引文件（通常位于应用自己的classes目录），不会遍历所有Jar包
+ *
+ * 类路径中的索引文件只有带有应用标记时才会被使用：依赖的Jar包中的索引只反映该Jar包构建时的类路径，
+ * 使用它会遗漏其他扩展，此时与不存在索引文件一样扫描类路径
+ *
+ * @see ExtensionIndexGenerator
+ * @author byx
+ */
+class ExtensionIndex {
+    private static final String EXTENSION_FILE_NAME = "byx-container-extension.properties";
+    static final String INDEX_FILE_NAME = "META-INF/byx-container-extension.index";
+    static final String INDEX_PROPERTY = "byx.container.extension.index";
+    private static final String KEY_CONTAINER_CALLBACK = "containerCallback";
+    private static final String KEY_OBJECT_CALLBACK = "objectCallback";
+    private static final String KEY_APPLICATION = "application";
+    private static final String DELIMITER = ",";
+
+    private final List<String> containerCallbackClassNames;
+    private final List<String> objectCallbackClassNames;
+
+    private ExtensionIndex(List<String> containerCallbackClassNames, List<String> objectCallbackClassNames) {
+        this.containerCallbackClassNames = Collections.unmodifiableList(containerCallbackClassNames);
+        this.objectCallbackClassNames = Collections.unmodifiableList(objectCallbackClassNames);
+    }
+
+    private static volatile ExtensionIndex instance;
+
+    /**
+     * 获取扩展索引，第一次调用时读取索引文件或扫描类路径
+     * 读取失败时抛出LoadExtensionException，并在下次调用时重新读取
+     */
+    static ExtensionIndex getInstance() {
+        ExtensionIndex index = instance;
+        if (index == null) {
+            synchronized (ExtensionIndex.class) {
+                index = instance;
+                if (index == null) {
+                    index = load();
+                    instance = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 优先读取应用构建时生成的索引文件，不存在时扫描类路径
+     */
+    private static ExtensionIndex load() {
+        Properties application = readApplicationIndex();
+        if (application == null) {
+            return scan();
+        }
+
+        List<String> containerCallbacks = new ArrayList<>();
+        List<String> objectCallbacks = new ArrayList<>();
+        addClassNames(containerCallbacks, application.getProperty(KEY_CONTAINER_CALLBACK));
+        addClassNames(objectCallbacks, application.getProperty(KEY_OBJECT_CALLBACK));
+        return new ExtensionIndex(containerCallbacks, objectCallbacks);
+    }
+
+    /**
+     * 读取应用的索引文件
+     * @return 索引文件的内容，不存在应用索引时返回null
+     */
+    private static Properties readApplicationIndex() {
+        String path = System.getProperty(INDEX_PROPERTY);
+        if (path != null) {
+            try {
+                return read(Paths.get(path).toUri().toURL());
+            } catch (MalformedURLException | InvalidPathException e) {
+                throw new LoadExtensionException(e);
+            }
+        }
+
+        URL url = JarUtils.getJarResource(INDEX_FILE_NAME);
+        if (url == null) {
+            return null;
+        }
+        Properties properties = read(url);
+        return Boolean.parseBoolean(properties.getProperty(KEY_APPLICATION)) ? properties : null;
+    }
+
+    /**
+     * 扫描类路径，依次解析每个扩展声明文件
+     */
+    static ExtensionIndex scan() {
+        List<String> containerCallbacks = new ArrayList<>();
+        List<String> objectCallbacks = new ArrayList<>();
+        for (URL url : getResources(EXTENSION_FILE_NAME)) {
+            Properties properties = read(url);
+            addClassNames(containerCallbacks, properties.getProperty(KEY_CONTAINER_CALLBACK));
+            addClassNames(objectCallbacks, properties.getProperty(KEY_OBJECT_CALLBACK));
+        }
+        return new ExtensionIndex(containerCallbacks, objectCallbacks);
+    }
+
+    private static List<URL> getResources(String resource) {
+        try {
+            return JarUtils.getJarResources(resource);
+        } catch (RuntimeException e) {
+            throw new LoadExtensionException(e);
+        }
+    }
+
+    private static Properties read(URL url) {
+        Properties properties = new Properties();
+        try (InputStream in = url.openStream()) {
+            properties.load(in);
+        } catch (Exception e) {
+            throw new LoadExtensionException(e);
+        }
+        return properties;
+    }
+
+    private static void addClassNames(List<String> result, String classNames) {
+        if (classNames == null) {
+            return;
+        }
+        for (String className : classNames.split(DELIMITER)) {
+            if (!className.isBlank()) {
+                result.add(className.trim());
+            }
+        }
+    }
+
+    /**
+     * 以扩展声明文件的格式写出带有应用标记的索引
+     */
+    void store(OutputStream out) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(KEY_APPLICATION, "true");
+        properties.setProperty(KEY_CONTAINER_CALLBACK, String.join(DELIMITER, containerCallbackClassNames));
+        properties.setProperty(KEY_OBJECT_CALLBACK, String.join(DELIMITER, objectCallbackClassNames));
+        properties.store(out, "Generated by " + ExtensionIndexGenerator.class.getName());
+    }
+
+    /**
+     * 获取所有ContainerCallback的全限定类名
+     */
+    List<String> getContainerCallbackClassNames() {
+        return containerCallbackClassNames;
+    }
+
+    /**
+     * 获取所有ObjectCallback的全限定类名
+     */
+    List<String> getObjectCallbackClassNames() {
+        return objectCallbackClassNames;
+    }
+}
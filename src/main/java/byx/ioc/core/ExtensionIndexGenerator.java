@@ -0,0 +1,74 @@
+package byx.ioc.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 扩展索引生成器
+ * 在构建时扫描类路径中的所有byx-container-extension.properties文件，
+ * 把其中声明的扩展合并到一个带有应用标记的索引文件META-INF/byx-container-extension.index中。
+ * 运行时ExtendableContainerFactory通过一次getResource找到该索引文件并直接读取，不再扫描类路径下的所有Jar包；
+ * 也可以通过系统属性byx.container.extension.index指定索引文件的路径。
+ *
+ * 索引反映的是整个应用的类路径，因此只应在应用（而不是作为依赖发布的库）的构建过程中生成，
+ * 运行生成器时需要显式传入--application参数。运行时只使用类路径中的第一个索引文件，
+ * 应用的classes目录通常位于类路径的最前面。
+ *
+ * 可以在应用的构建过程中通过exec-maven-plugin运行：
+ * <pre>
+ * &lt;plugin&gt;
+ *     &lt;groupId&gt;org.codehaus.mojo&lt;/groupId&gt;
+ *     &lt;artifactId&gt;exec-maven-plugin&lt;/artifactId&gt;
+ *     &lt;executions&gt;
+ *         &lt;execution&gt;
+ *             &lt;phase&gt;process-classes&lt;/phase&gt;
+ *             &lt;goals&gt;&lt;goal&gt;java&lt;/goal&gt;&lt;/goals&gt;
+ *             &lt;configuration&gt;
+ *                 &lt;mainClass&gt;byx.ioc.core.ExtensionIndexGenerator&lt;/mainClass&gt;
+ *                 &lt;arguments&gt;
+ *                     &lt;argument&gt;--application&lt;/argument&gt;
+ *                     &lt;argument&gt;${project.build.outputDirectory}&lt;/argument&gt;
+ *                 &lt;/arguments&gt;
+ *                 &lt;classpathScope&gt;runtime&lt;/classpathScope&gt;
+ *             &lt;/configuration&gt;
+ *         &lt;/execution&gt;
+ *     &lt;/executions&gt;
+ * &lt;/plugin&gt;
+ * </pre>
+ *
+ * 注意：生成的索引文件只反映构建时的类路径，类路径发生变化时需要重新生成
+ *
+ * @author byx
+ */
+public class ExtensionIndexGenerator {
+    private static final String APPLICATION_OPTION = "--application";
+
+    /**
+     * 生成应用的索引文件
+     * @param outputDirectory 应用的输出目录（通常是classes目录）
+     * @return 生成的索引文件路径
+     */
+    public static Path generateApplicationIndex(Path outputDirectory) throws IOException {
+        Path file = outputDirectory.resolve(ExtensionIndex.INDEX_FILE_NAME);
+        Files.createDirectories(file.getParent());
+        try (OutputStream out = Files.newOutputStream(file)) {
+            ExtensionIndex.scan().store(out);
+        }
+        return file;
+    }
+
+    /**
+     * @param args --application [输出目录]，输出目录默认为target/classes
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || !args[0].equals(APPLICATION_OPTION)) {
+            System.err.println("Usage: " + ExtensionIndexGenerator.class.getName() + " " + APPLICATION_OPTION + " [outputDirectory]");
+            System.exit(1);
+        }
+        Path outputDirectory = Paths.get(args.length > 1 ? args[1] : "target/classes");
+        System.out.println("Extension index generated: " + generateApplicationIndex(outputDirectory));
+    }
+}
@@ -0,0 +1,123 @@
+package byx.ioc.core;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Constructor;
+import java.util.function.Function;
+
+/**
+ * 为构造函数生成实例化器
+ *
+ * 对于参数个数不超过6的构造函数，使用LambdaMetafactory生成直接调用构造函数的隐藏类，
+ * 其余情况使用MethodHandle调用构造函数
+ *
+ * @author byx
+ */
+final class Instantiators {
+    public interface F0 { Object create(); }
+    public interface F1 { Object create(Object p0); }
+    public interface F2 { Object create(Object p0, Object p1); }
+    public interface F3 { Object create(Object p0, Object p1, Object p2); }
+    public interface F4 { Object create(Object p0, Object p1, Object p2, Object p3); }
+    public interface F5 { Object create(Object p0, Object p1, Object p2, Object p3, Object p4); }
+    public interface F6 { Object create(Object p0, Object p1, Object p2, Object p3, Object p4, Object p5); }
+
+    private static final Class<?>[] INTERFACES = {F0.class, F1.class, F2.class, F3.class, F4.class, F5.class, F6.class};
+
+    private Instantiators() {
+    }
+
+    /**
+     * 生成实例化器
+     * @param constructor 构造函数
+     * @return 实例化器，参数为构造函数参数数组，返回值为创建的对象
+     */
+    static Function<Object[], Object> create(Constructor<?> constructor) throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.privateLookupIn(constructor.getDeclaringClass(), MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            // 目标类所在的模块没有开放，只能访问公有构造函数
+            lookup = MethodHandles.lookup();
+        }
+        MethodHandle handle = lookup.unreflectConstructor(constructor);
+        int n = constructor.getParameterCount();
+
+        if (n < INTERFACES.length) {
+            try {
+                return fromLambda(lookup, handle, n);
+            } catch (LambdaConversionException | IllegalAccessError ignored) {
+                // 目标类对生成的实例化器不可见时，使用MethodHandle调用构造函数
+            }
+        }
+
+        return new MethodHandleInstantiator(handle, n);
+    }
+
+    /**
+     * 通过MethodHandle调用构造函数的实例化器，用于参数个数超过6或无法生成隐藏类的构造函数
+     */
+    static class MethodHandleInstantiator implements Function<Object[], Object> {
+        private final MethodHandle spreader;
+
+        private MethodHandleInstantiator(MethodHandle handle, int parameterCount) {
+            this.spreader = handle.asSpreader(Object[].class, parameterCount)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        }
+
+        @Override
+        public Object apply(Object[] params) {
+            try {
+                return spreader.invokeExact(params);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private static Function<Object[], Object> fromLambda(MethodHandles.Lookup lookup, MethodHandle handle, int n)
+            throws LambdaConversionException {
+        Class<?> fi = INTERFACES[n];
+        MethodType samType = MethodType.genericMethodType(n);
+        CallSite callSite = LambdaMetafactory.metafactory(lookup, "create", MethodType.methodType(fi),
+                samType, handle, handle.type().wrap());
+        Object f;
+        try {
+            f = callSite.getTarget().invoke();
+        } catch (Throwable e) {
+            throw new LambdaConversionException(e);
+        }
+
+        switch (n) {
+            case 0: {
+                F0 f0 = (F0) f;
+                return params -> f0.create();
+            }
+            case 1: {
+                F1 f1 = (F1) f;
+                return params -> f1.create(params[0]);
+            }
+            case 2: {
+                F2 f2 = (F2) f;
+                return params -> f2.create(params[0], params[1]);
+            }
+            case 3: {
+                F3 f3 = (F3) f;
+                return params -> f3.create(params[0], params[1], params[2]);
+            }
+            case 4: {
+                F4 f4 = (F4) f;
+                return params -> f4.create(params[0], params[1], params[2], params[3]);
+            }
+            case 5: {
+                F5 f5 = (F5) f;
+                return params -> f5.create(params[0], params[1], params[2], params[3], params[4]);
+            }
+            default: {
+                F6 f6 = (F6) f;
+                return params -> f6.create(params[0], params[1], params[2], params[3], params[4], params[5]);
+            }
+        }
+    }
+}
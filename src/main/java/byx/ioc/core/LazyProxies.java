@@ -0,0 +1,110 @@
+package byx.ioc.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 生成延迟初始化代理
+ *
+ * 代理对象实现指定的接口，第一次调用方法时通过Provider获取目标对象，之后直接委托给目标对象。
+ * 每个接口的所有方法在第一次使用时被转换成MethodHandle并缓存，调用方法时通过MethodHandle的invokeExact委托，
+ * 不经过Method.invoke反射调用
+ *
+ * @author byx
+ */
+final class LazyProxies {
+    private static final Object[] NO_ARGS = new Object[0];
+
+    /**
+     * 接口 -> 该接口所有方法的MethodHandle
+     */
+    private static final ClassValue<Map<Method, MethodHandle>> METHOD_HANDLES = new ClassValue<>() {
+        @Override
+        protected Map<Method, MethodHandle> computeValue(Class<?> type) {
+            return createMethodHandles(type);
+        }
+    };
+
+    private LazyProxies() {
+    }
+
+    /**
+     * 创建延迟初始化代理
+     * @param type 代理实现的接口
+     * @param provider 目标对象的Provider
+     * @return 代理对象
+     */
+    static Object create(Class<?> type, Provider<?> provider) {
+        Map<Method, MethodHandle> methodHandles = METHOD_HANDLES.get(type);
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new Handler(provider, methodHandles));
+    }
+
+    /**
+     * 为接口及Object中的所有公有实例方法创建MethodHandle，类型统一为(Object, Object[])Object
+     * 接口的静态方法不会被代理调用，因此跳过
+     */
+    private static Map<Method, MethodHandle> createMethodHandles(Class<?> type) {
+        MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            // 接口所在的模块没有开放，只能访问公有接口
+            lookup = MethodHandles.lookup();
+        }
+
+        Map<Method, MethodHandle> result = new HashMap<>();
+        try {
+            for (Method method : type.getMethods()) {
+                if (Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                result.put(method, spread(lookup.unreflect(method), method.getParameterCount()));
+            }
+            for (String name : new String[]{"hashCode", "toString"}) {
+                Method method = Object.class.getMethod(name);
+                result.put(method, spread(MethodHandles.publicLookup().unreflect(method), 0));
+            }
+            Method equals = Object.class.getMethod("equals", Object.class);
+            result.put(equals, spread(MethodHandles.publicLookup().unreflect(equals), 1));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot create lazy proxy for " + type, e);
+        }
+        return result;
+    }
+
+    private static MethodHandle spread(MethodHandle handle, int parameterCount) {
+        return handle.asSpreader(Object[].class, parameterCount)
+                .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+    }
+
+    /**
+     * 代理对象的调用处理器
+     */
+    private static class Handler implements InvocationHandler {
+        private final Provider<?> provider;
+        private final Map<Method, MethodHandle> methodHandles;
+
+        private Handler(Provider<?> provider, Map<Method, MethodHandle> methodHandles) {
+            this.provider = provider;
+            this.methodHandles = methodHandles;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (args != null && args.length == 1 && args[0] == proxy && method.getName().equals("equals")) {
+                return true;
+            }
+            MethodHandle handle = methodHandles.get(method);
+            Object target = provider.get();
+            Object[] params = args == null ? NO_ARGS : args;
+            return (Object) handle.invokeExact(target, params);
+        }
+    }
+}
@@ -6,6 +6,17 @@ package byx.ioc.core;
  * @author byx
  */
 public interface ObjectCallback{
+    /**
+     * 回调器是否作用于指定对象，只有返回true的对象才会触发该回调器
+     * 该方法在创建容器时对每个对象调用一次
+     * @param id 注册id
+     * @param type 对象类型
+     * @return 是否作用于该对象
+     */
+    default boolean supports(String id, Class<?> type) {
+        return true;
+    }
+
     /**
      * 对象初始化后回调
      * @param ctx 上下文
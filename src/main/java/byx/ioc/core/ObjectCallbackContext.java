@@ -2,11 +2,14 @@ package byx.ioc.core;
 
 /**
  * 对象回调器上下文
+ * 容器创建对象时，该对象的初始化回调和包装回调共用一个上下文，每个回调器返回的包装对象会直接更新到该上下文中，
+ * 包装回调结束后上下文恢复为初始化后的对象。因此getObject只在回调执行期间返回该回调器的输入，
+ * 需要在回调结束后访问输入对象的回调器（例如在代理中）应该在回调时保存getObject的返回值，而不是保存上下文
  *
  * @author byx
  */
 public class ObjectCallbackContext {
-    private final Object obj;
+    private Object obj;
     private final Container container;
     private final ObjectDefinition definition;
     private final String id;
@@ -19,12 +22,21 @@ public class ObjectCallbackContext {
     }
 
     /**
-     * 获取原始对象
+     * 获取当前对象
+     * 在afterObjectInit中为初始化后的对象，在afterObjectWrap中为上一个回调器包装后的对象，
+     * 回调结束后为初始化后的对象
      */
     public Object getObject() {
         return obj;
     }
 
+    /**
+     * 更新当前对象（上一个回调器包装后的对象）
+     */
+    void setObject(Object obj) {
+        this.obj = obj;
+    }
+
     /**
      * 获取注册id
      */
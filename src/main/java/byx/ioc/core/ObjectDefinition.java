@@ -21,6 +21,23 @@ public interface ObjectDefinition {
         return new Dependency[0];
     }
 
+    /**
+     * 对象的作用域
+     * @return 作用域
+     * @see Scope
+     */
+    default Scope getScope() {
+        return Scope.singleton();
+    }
+
+    /**
+     * 指定对象的优先级，通过Dependency.all注入对象列表时，数字小的排在前面
+     * @return 顺序值
+     */
+    default int getOrder() {
+        return 0;
+    }
+
     /**
      * 实例化
      * @param params 实例化依赖项
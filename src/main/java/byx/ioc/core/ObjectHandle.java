@@ -0,0 +1,21 @@
+package byx.ioc.core;
+
+/**
+ * 对象句柄，用于快速获取容器中的同一个对象
+ *
+ * @author byx
+ * @see Container#handle(String, Class)
+ */
+public interface ObjectHandle<T> {
+    /**
+     * 获取对象实例，如果对象还未创建则创建该对象
+     * @return 对象实例
+     */
+    T get();
+
+    /**
+     * 获取对象id
+     * @return id
+     */
+    String getId();
+}
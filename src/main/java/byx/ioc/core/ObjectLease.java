@@ -0,0 +1,27 @@
+package byx.ioc.core;
+
+/**
+ * 从对象池中借出的对象，调用close方法把对象归还到对象池
+ * 配合try-with-resources使用：
+ * <pre>
+ * try (ObjectLease&lt;Parser&gt; lease = container.lease("parser")) {
+ *     lease.get().parse(...);
+ * }
+ * </pre>
+ *
+ * @author byx
+ * @see Container#lease(String)
+ */
+public interface ObjectLease<T> extends AutoCloseable {
+    /**
+     * 获取借出的对象
+     * @return 对象实例
+     */
+    T get();
+
+    /**
+     * 归还对象，重复调用无效
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,85 @@
+package byx.ioc.core;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 有界对象池
+ * 使用信号量限制同时借出的对象个数，空闲对象按后进先出的顺序复用
+ *
+ * @author byx
+ */
+class ObjectPool {
+    private final int maxSize;
+    private final Supplier<Object> factory;
+    private final Semaphore permits;
+    private final Deque<Object> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger createdCount = new AtomicInteger();
+    private final AtomicLong totalBorrowCount = new AtomicLong();
+
+    /**
+     * @param maxSize 最大容量
+     * @param factory 对象工厂，返回值不能为null
+     */
+    ObjectPool(int maxSize, Supplier<Object> factory) {
+        this.maxSize = maxSize;
+        this.factory = factory;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * 借出对象，对象池已满时等待，直到有对象归还或超时
+     * @return 借出的对象，超时返回null
+     */
+    Object borrow(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!permits.tryAcquire(timeout, unit)) {
+            return null;
+        }
+        return take();
+    }
+
+    /**
+     * 借出对象，对象池已满时一直等待
+     */
+    Object borrow() throws InterruptedException {
+        permits.acquire();
+        return take();
+    }
+
+    private Object take() {
+        Object obj = idle.pollFirst();
+        if (obj != null) {
+            totalBorrowCount.incrementAndGet();
+            return obj;
+        }
+
+        try {
+            obj = factory.get();
+        } catch (RuntimeException | Error e) {
+            permits.release();
+            throw e;
+        }
+        createdCount.incrementAndGet();
+        totalBorrowCount.incrementAndGet();
+        return obj;
+    }
+
+    /**
+     * 归还对象
+     */
+    void giveBack(Object obj) {
+        idle.offerFirst(obj);
+        permits.release();
+    }
+
+    PoolMetrics getMetrics() {
+        int borrowed = maxSize - permits.availablePermits();
+        return new PoolMetrics(maxSize, createdCount.get(), idle.size(), borrowed,
+                permits.getQueueLength(), totalBorrowCount.get());
+    }
+}
@@ -0,0 +1,48 @@
+package byx.ioc.core;
+
+/**
+ * 编译后的特殊实例化参数，即不直接注入目标对象本身的依赖项
+ * Provider和延迟初始化代理的目标对象不在实例化依赖图中，对象列表的所有成员都在实例化依赖图中
+ *
+ * @author byx
+ */
+class ParameterSlot {
+    /**
+     * 注入方式
+     */
+    final Dependency.Kind kind;
+
+    /**
+     * 目标对象编号
+     */
+    final int target;
+
+    /**
+     * 注入参数的类型（延迟初始化代理实现的接口），其他注入方式为null
+     */
+    final Class<?> type;
+
+    /**
+     * 对象列表中所有对象的编号（按列表顺序），其他注入方式为null
+     */
+    final int[] targets;
+
+    ParameterSlot(Dependency.Kind kind, int target, Class<?> type) {
+        this.kind = kind;
+        this.target = target;
+        this.type = type;
+        this.targets = null;
+    }
+
+    /**
+     * 创建对象列表参数
+     * @param type 列表元素类型
+     * @param targets 所有对象的编号
+     */
+    ParameterSlot(Class<?> type, int[] targets) {
+        this.kind = Dependency.Kind.ALL;
+        this.target = -1;
+        this.type = type;
+        this.targets = targets;
+    }
+}
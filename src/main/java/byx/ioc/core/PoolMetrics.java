@@ -0,0 +1,80 @@
+package byx.ioc.core;
+
+/**
+ * 对象池使用情况
+ *
+ * @author byx
+ */
+public class PoolMetrics {
+    private final int maxSize;
+    private final int createdCount;
+    private final int idleCount;
+    private final int borrowedCount;
+    private final int waitingCount;
+    private final long totalBorrowCount;
+
+    public PoolMetrics(int maxSize, int createdCount, int idleCount, int borrowedCount, int waitingCount, long totalBorrowCount) {
+        this.maxSize = maxSize;
+        this.createdCount = createdCount;
+        this.idleCount = idleCount;
+        this.borrowedCount = borrowedCount;
+        this.waitingCount = waitingCount;
+        this.totalBorrowCount = totalBorrowCount;
+    }
+
+    /**
+     * 对象池的最大容量
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 对象池已创建的对象个数
+     */
+    public int getCreatedCount() {
+        return createdCount;
+    }
+
+    /**
+     * 当前空闲的对象个数
+     */
+    public int getIdleCount() {
+        return idleCount;
+    }
+
+    /**
+     * 当前已借出的对象个数
+     */
+    public int getBorrowedCount() {
+        return borrowedCount;
+    }
+
+    /**
+     * 当前等待借出对象的线程个数（估计值）
+     */
+    public int getWaitingCount() {
+        return waitingCount;
+    }
+
+    /**
+     * 累计借出次数
+     */
+    public long getTotalBorrowCount() {
+        return totalBorrowCount;
+    }
+
+    /**
+     * 对象池利用率：已借出的对象个数 / 最大容量
+     */
+    public double getUtilization() {
+        return (double) borrowedCount / maxSize;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolMetrics{" + "maxSize=" + maxSize + ", createdCount=" + createdCount + ", idleCount=" + idleCount
+                + ", borrowedCount=" + borrowedCount + ", waitingCount=" + waitingCount
+                + ", totalBorrowCount=" + totalBorrowCount + '}';
+    }
+}
@@ -0,0 +1,18 @@
+package byx.ioc.core;
+
+/**
+ * 延迟获取对象的Provider，通过Dependency.provider注入
+ * 第一次调用get方法时从容器中获取目标对象，之后一直返回同一个对象
+ *
+ * 注意：如果Provider打破了构造函数之间的循环依赖，则不能在构造函数中调用get方法
+ *
+ * @author byx
+ * @see Dependency#provider(String)
+ */
+public interface Provider<T> {
+    /**
+     * 获取对象
+     * @return 对象实例
+     */
+    T get();
+}
@@ -0,0 +1,81 @@
+package byx.ioc.core;
+
+/**
+ * 对象的作用域
+ *
+ * @author byx
+ */
+public class Scope {
+    /**
+     * 作用域类型
+     */
+    enum Kind {
+        SINGLETON, PROTOTYPE, POOLED, THREAD
+    }
+
+    private static final Scope SINGLETON = new Scope(Kind.SINGLETON, 0);
+    private static final Scope PROTOTYPE = new Scope(Kind.PROTOTYPE, 0);
+    private static final Scope THREAD = new Scope(Kind.THREAD, 0);
+
+    private final Kind kind;
+    private final int poolSize;
+
+    private Scope(Kind kind, int poolSize) {
+        this.kind = kind;
+        this.poolSize = poolSize;
+    }
+
+    /**
+     * 单例：容器中只创建一个对象，并缓存在容器中
+     */
+    public static Scope singleton() {
+        return SINGLETON;
+    }
+
+    /**
+     * 原型：每次获取对象时都创建一个新的对象，容器不缓存该对象
+     */
+    public static Scope prototype() {
+        return PROTOTYPE;
+    }
+
+    /**
+     * 对象池：容器为该对象维护一个有界对象池，通过Container的lease方法借出对象，用完后归还
+     * 通过getObject方法获取或作为依赖项注入时，与原型作用域相同
+     * @param poolSize 对象池的最大容量
+     */
+    public static Scope pooled(int poolSize) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("poolSize must be positive: " + poolSize);
+        }
+        return new Scope(Kind.POOLED, poolSize);
+    }
+
+    /**
+     * 线程：每个线程拥有一个独立的对象，在该线程第一次获取对象时创建
+     * 调用Container的clearThreadObjects方法清除当前线程的所有对象
+     */
+    public static Scope thread() {
+        return THREAD;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    public String getName() {
+        return kind.name().toLowerCase();
+    }
+
+    /**
+     * 获取对象池的最大容量，只对对象池作用域有效
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    @Override
+    public String toString() {
+        return "Scope{" + "name='" + getName() + '\'' + ", poolSize=" + poolSize + '}';
+    }
+}
@@ -1,38 +1,235 @@
 package byx.ioc.core;
 
 import byx.ioc.exception.*;
+import byx.ioc.util.FutureUtils;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Container的实现类：支持循环依赖的IOC容器
  *
+ * 并发模式下，容器可以被多个线程同时访问：
+ * 获取一级缓存中已完全初始化的对象不需要加锁，
+ * 第一次创建某个对象时，创建线程通过CAS登记该对象的创建过程，其他线程等待该创建过程的Future完成。
+ * 整个过程不使用synchronized和对象锁，等待中的虚拟线程会让出载体线程
+ *
+ * 容器可以拥有父容器，本地找不到的对象从父容器中获取，见{@link #SimpleContainer(Container, boolean)}
+ *
  * @author byx
  */
 public class SimpleContainer implements Container {
+    /**
+     * 用于在缓存中表示null对象
+     */
+    private static final Object NULL = new Object();
+
     /**
      * 存储所有ObjectDefinition
      */
-    private final Map<String, ObjectDefinition> definitions = new HashMap<>();
+    private Map<String, ObjectDefinition> definitions = new HashMap<>();
 
     /**
-     * 一级缓存：存放已完全初始化的对象
+     * 一级缓存：存放已完全初始化的对象，下标为对象编号，在冻结容器时创建
      */
-    private final Map<String, Object> cache1 = new HashMap<>();
+    private AtomicReferenceArray<Object> cache1;
 
     /**
-     * 二级缓存：存放已实例化对象的工厂
+     * 二级缓存：存放已实例化对象的工厂，下标为对象编号，在冻结容器时创建
      * 该工厂包含对已实例化对象的代理操作
      * 通过调用ObjectDefinition的doWrap方法
      */
-    private final Map<String, Supplier<Object>> cache2 = new HashMap<>();
+    private Supplier<Object>[] cache2;
+
+    /**
+     * 所有对象id，下标为对象编号，在冻结容器时创建
+     */
+    private String[] ids;
+
+    /**
+     * 对象id -> 对象编号
+     */
+    private Map<String, Integer> indexes;
+
+    /**
+     * 所有ObjectDefinition，下标为对象编号
+     */
+    private ObjectDefinition[] objectDefinitions;
+
+    /**
+     * 每个对象是否为非单例作用域，非单例对象不经过一级缓存和二级缓存，下标为对象编号
+     */
+    private boolean[] nonSingletons;
+
+    /**
+     * 每个对象是否为线程作用域，下标为对象编号
+     */
+    private boolean[] threadScoped;
+
+    /**
+     * 当前线程的线程作用域对象，下标为对象编号
+     */
+    private final ThreadLocal<Object[]> threadObjects = new ThreadLocal<>();
+
+    /**
+     * 对象池作用域的对象池，下标为对象编号，其他作用域为null
+     */
+    private ObjectPool[] pools;
+
+    /**
+     * 实例化依赖图的邻接表
+     */
+    private int[][] instanceDependencies;
+
+    /**
+     * 实例化参数，见ContainerTemplate的parameters
+     */
+    private int[][] parameters;
+
+    /**
+     * 特殊实例化参数
+     */
+    private ParameterSlot[] parameterSlots;
+
+    /**
+     * 对象编号的拓扑序列，每个对象都排在它的实例化依赖项之后
+     */
+    private int[] creationOrder;
+
+    /**
+     * 编译后的对象定义，在冻结容器时创建，或者由模板传入
+     */
+    private ContainerTemplate template;
+
+    /**
+     * 父容器，没有父容器时为null
+     */
+    private final Container parent;
+
+    /**
+     * 是否为并发模式
+     */
+    private final boolean concurrent;
+
+    /**
+     * 并发模式下正在创建的对象，下标为对象编号，在冻结容器时创建
+     * 创建完成后移除，其他线程通过Creation中的Future等待创建完成
+     */
+    private AtomicReferenceArray<Creation> creatingObjects;
+
+    /**
+     * 一个对象的创建过程
+     */
+    private static class Creation {
+        /**
+         * 对象编号
+         */
+        private final int index;
+
+        /**
+         * 创建完成时返回对象
+         */
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        /**
+         * 正在执行创建步骤的线程，只有该线程可以访问二级缓存
+         * 异步创建时，在等待I/O期间为null
+         */
+        private volatile Thread owner;
+
+        /**
+         * 通过循环等待检测获得二级缓存访问权限的其他线程，在waitLock保护下写入
+         */
+        private volatile Set<Thread> guests = Collections.emptySet();
+
+        private Creation(int index, Thread owner) {
+            this.index = index;
+            this.owner = owner;
+        }
+    }
+
+    /**
+     * 并发模式下的等待关系：等待中的线程 -> 该线程等待的创建过程，由waitLock保护
+     * 只有需要等待其他线程创建对象时才会访问
+     */
+    private final Map<Thread, Creation> waits = new HashMap<>();
+
+    /**
+     * 保护waits和Creation.guests的锁
+     */
+    private final Lock waitLock = new ReentrantLock();
+
+    /**
+     * 冻结容器时使用的锁
+     */
+    private final Lock freezeLock = new ReentrantLock();
 
     /**
      * 当第一次调用getObject方法之后，禁止再向容器中注册对象
      */
-    private boolean freeze = false;
+    private volatile boolean freeze = false;
+
+    /**
+     * 创建非并发模式的容器
+     */
+    public SimpleContainer() {
+        this(false);
+    }
+
+    /**
+     * 创建容器
+     * @param concurrent 是否为并发模式
+     */
+    public SimpleContainer(boolean concurrent) {
+        this((Container) null, concurrent);
+    }
+
+    /**
+     * 创建非并发模式的子容器
+     * @param parent 父容器
+     */
+    public SimpleContainer(Container parent) {
+        this(parent, false);
+    }
+
+    /**
+     * 创建子容器
+     *
+     * 子容器只保存在本地注册或覆盖的对象定义，创建子容器不会复制父容器中的任何内容：
+     * 1. 本地找不到的id和类型从父容器中获取，父容器中的单例对象由父容器负责缓存，所有子容器共享
+     * 2. 在子容器中注册与父容器相同的id，或者对父容器中的id调用setObjectDefinition，会在子容器中覆盖该对象
+     * 3. 本地对象可以依赖父容器中的对象，这些依赖项在冻结子容器时解析，之后直接通过父容器的ObjectHandle获取
+     *
+     * @param parent 父容器，为null时创建普通容器
+     * @param concurrent 是否为并发模式
+     */
+    public SimpleContainer(Container parent, boolean concurrent) {
+        this.parent = parent;
+        this.concurrent = concurrent;
+    }
+
+    /**
+     * 由容器模板创建已冻结的容器，共用模板的编译结果
+     * @param template 容器模板
+     * @param concurrent 是否为并发模式
+     */
+    SimpleContainer(ContainerTemplate template, boolean concurrent) {
+        this.parent = template.parent;
+        this.concurrent = concurrent;
+        this.definitions = template.definitions;
+        init(template);
+        this.freeze = true;
+    }
 
     /**
      * 检查id是否重复
@@ -44,21 +241,51 @@ public class SimpleContainer implements Container {
     }
 
     /**
-     * 检查id是否存在
+     * 第一次调用getObject方法时冻结整个容器，并检测循环依赖
      */
-    private void checkIdExist(String id) {
-        if (!definitions.containsKey(id)) {
-            throw new IdNotFoundException(id);
+    private void checkCircularDependencyAndFreezeContainer() {
+        if (freeze) {
+            return;
+        }
+        freezeLock.lock();
+        try {
+            if (!freeze) {
+                init(new ContainerTemplate(definitions, parent));
+                freeze = true;
+            }
+        } finally {
+            freezeLock.unlock();
         }
     }
 
     /**
-     * 第一次调用getObject方法时冻结整个容器，并检测循环依赖
+     * 使用编译后的对象定义初始化容器，并为对象分配存储空间
      */
-    private void checkCircularDependencyAndFreezeContainer() {
-        if (!freeze) {
-            checkCircularDependency();
-            freeze = true;
+    @SuppressWarnings("unchecked")
+    private void init(ContainerTemplate template) {
+        this.template = template;
+        ids = template.ids;
+        indexes = template.indexes;
+        objectDefinitions = template.objectDefinitions;
+        nonSingletons = template.nonSingletons;
+        threadScoped = template.threadScoped;
+        instanceDependencies = template.instanceDependencies;
+        parameters = template.parameters;
+        parameterSlots = template.parameterSlots;
+        creationOrder = template.creationOrder;
+
+        int n = ids.length;
+        cache1 = new AtomicReferenceArray<>(n);
+        cache2 = (Supplier<Object>[]) new Supplier<?>[n];
+        pools = new ObjectPool[n];
+        for (int i = 0; i < n; ++i) {
+            if (template.poolSizes[i] > 0) {
+                int index = i;
+                pools[i] = new ObjectPool(template.poolSizes[i], () -> mask(createPrototype(index)));
+            }
+        }
+        if (concurrent) {
+            creatingObjects = new AtomicReferenceArray<>(n);
         }
     }
 
@@ -73,6 +300,9 @@ public class SimpleContainer implements Container {
     @Override
     public ObjectDefinition getObjectDefinition(String id) {
         if (!definitions.containsKey(id)) {
+            if (parent != null) {
+                return parent.getObjectDefinition(id);
+            }
             throw new IdNotFoundException(id);
         }
         return definitions.get(id);
@@ -82,7 +312,11 @@ public class SimpleContainer implements Container {
     public void setObjectDefinition(String id, ObjectDefinition definition) {
         if (!freeze) {
             if (!definitions.containsKey(id)) {
-                throw new IdNotFoundException(id);
+                if (parent == null) {
+                    throw new IdNotFoundException(id);
+                }
+                // 检查父容器中是否存在该id，然后在子容器中覆盖
+                parent.getObjectDefinition(id);
             }
             definitions.put(id, definition);
         }
@@ -92,13 +326,24 @@ public class SimpleContainer implements Container {
     @SuppressWarnings("unchecked")
     public <T> T getObject(String id) {
         checkCircularDependencyAndFreezeContainer();
-        checkIdExist(id);
-        return (T) createOrGetObject(id, definitions.get(id));
+        Integer index = indexes.get(id);
+        if (index == null) {
+            if (parent != null) {
+                return parent.getObject(id);
+            }
+            throw new IdNotFoundException(id);
+        }
+        return (T) doGetObject(index);
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T getObject(Class<T> type) {
-        return getObject(getTypeId(type));
+        checkCircularDependencyAndFreezeContainer();
+        if (parent != null && template.resolveType(type).length == 0) {
+            return parent.getObject(template.getParentTypeId(type));
+        }
+        return (T) doGetObject(template.getTypeIndex(type));
     }
 
     @Override
@@ -113,212 +358,887 @@ public class SimpleContainer implements Container {
     @Override
     @SuppressWarnings("unchecked")
     public <T> Set<T> getObjects(Class<T> type) {
-        Set<Object> objects = definitions.keySet().stream()
-                .filter(id -> type.isAssignableFrom(definitions.get(id).getType()))
-                .map(id -> createOrGetObject(id, definitions.get(id)))
-                .collect(Collectors.toSet());
+        checkCircularDependencyAndFreezeContainer();
+        Set<Object> objects = new HashSet<>();
+        for (int i : template.resolveType(type)) {
+            objects.add(doGetObject(i));
+        }
+
+        // 父容器中未被覆盖的对象
+        for (String id : template.resolveParentType(type)) {
+            objects.add(parent.getObject(id));
+        }
         return (Set<T>) objects;
     }
 
+    /**
+     * 获取匹配类型的所有对象id，包括父容器中未被本地覆盖的对象
+     */
+    String[] resolveIds(Class<?> type) {
+        checkCircularDependencyAndFreezeContainer();
+        int[] local = template.resolveType(type);
+        String[] inherited = template.resolveParentType(type);
+        String[] result = Arrays.copyOf(inherited, local.length + inherited.length);
+        for (int i = 0; i < local.length; ++i) {
+            result[inherited.length + i] = ids[local[i]];
+        }
+        return result;
+    }
+
     @Override
-    public Set<String> getObjectIds() {
-        return new HashSet<>(definitions.keySet());
+    public <T> CompletableFuture<T> getObjectAsync(String id, Executor executor) {
+        try {
+            checkCircularDependencyAndFreezeContainer();
+            Integer index = indexes.get(id);
+            if (index == null) {
+                if (parent != null) {
+                    return parent.getObjectAsync(id, executor);
+                }
+                throw new IdNotFoundException(id);
+            }
+            return doGetObjectAsync(index, executor);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
     @Override
-    public Set<Class<?>> getObjectTypes() {
-        return definitions.values().stream()
-                .map(ObjectDefinition::getType)
-                .collect(Collectors.toSet());
+    public <T> CompletableFuture<T> getObjectAsync(Class<T> type, Executor executor) {
+        try {
+            checkCircularDependencyAndFreezeContainer();
+            if (parent != null && template.resolveType(type).length == 0) {
+                return parent.getObjectAsync(template.getParentTypeId(type), executor);
+            }
+            return doGetObjectAsync(template.getTypeIndex(type), executor);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
     /**
-     * 创建依赖项
+     * 异步获取对象
+     * 一级缓存命中时直接返回已完成的Future。
+     * 线程作用域的对象属于调用线程，因此直接在调用线程中获取，否则会得到executor中工作线程的实例。
+     * 非并发模式下容器不能被多个线程同时访问，因此在executor中依次创建整个依赖图。
      */
-    private Object createDependency(Dependency dependency) {
-        if (dependency.getId() != null) {
-            return getObject(dependency.getId());
-        } else if (dependency.getType() != null) {
-            return getObject(dependency.getType());
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> doGetObjectAsync(int index, Executor executor) {
+        Object cached = cache1.get(index);
+        if (cached != null) {
+            return CompletableFuture.completedFuture((T) unmask(cached));
+        }
+        if (threadScoped[index]) {
+            return CompletableFuture.completedFuture((T) doGetObject(index));
         }
-        throw new BadDependencyException(dependency);
+        if (!concurrent) {
+            return CompletableFuture.supplyAsync(() -> (T) doGetObject(index), executor);
+        }
+        return (CompletableFuture<T>) createObjectsAsync(new int[]{index}, executor).get(index);
     }
 
     /**
-     * 创建依赖数组
+     * 并发模式下异步创建对象及其尚未创建的依赖项
+     *
+     * 从每个起点开始后序遍历实例化依赖图中尚未创建的部分，为每个对象创建一个Future：
+     * 该Future在对象的所有依赖项完成之后，提交到executor中创建对象，因此互不依赖的分支会被并发创建。
+     * 作为依赖项的非单例对象本身不提前创建，只等待它的依赖项；
+     * AsyncObjectDefinition定义的单例对象通过createObjectAsync创建，不占用线程等待实例化和初始化完成。
+     *
+     * @param roots 起点对象编号
+     * @param executor 用于创建对象的Executor
+     * @return 对象编号 -> 创建该对象的Future（不包含已创建的对象）
      */
-    private Object[] createDependencies(Dependency[] dependencies) {
-        Object[] params = new Object[dependencies.length];
-        for (int i = 0; i < dependencies.length; ++i) {
-            params[i] = createDependency(dependencies[i]);
+    private Map<Integer, CompletableFuture<?>> createObjectsAsync(int[] roots, Executor executor) {
+        Map<Integer, CompletableFuture<?>> futures = new HashMap<>();
+        int[] nodes = new int[4];
+        int[] next = new int[4];
+
+        for (int root : roots) {
+            if (futures.containsKey(root) || cache1.get(root) != null) {
+                continue;
+            }
+
+            int sp = 0;
+            nodes[sp] = root;
+            next[sp++] = 0;
+            while (sp > 0) {
+                int cur = nodes[sp - 1];
+                int[] dependencies = instanceDependencies[cur];
+                int pos = next[sp - 1];
+                while (pos < dependencies.length
+                        && (futures.containsKey(dependencies[pos]) || cache1.get(dependencies[pos]) != null)) {
+                    pos++;
+                }
+                next[sp - 1] = pos;
+
+                if (pos < dependencies.length) {
+                    if (sp == nodes.length) {
+                        nodes = Arrays.copyOf(nodes, sp * 2);
+                        next = Arrays.copyOf(next, sp * 2);
+                    }
+                    nodes[sp] = dependencies[pos];
+                    next[sp++] = 0;
+                    continue;
+                }
+
+                sp--;
+                List<CompletableFuture<?>> waits = new ArrayList<>();
+                for (int dependency : dependencies) {
+                    CompletableFuture<?> future = futures.get(dependency);
+                    if (future != null) {
+                        waits.add(future);
+                    }
+                }
+                CompletableFuture<Void> ready = CompletableFuture.allOf(waits.toArray(new CompletableFuture<?>[0]));
+
+                // sp > 0说明cur是其他对象的依赖项，而不是起点
+                if (nonSingletons[cur] && sp > 0) {
+                    futures.put(cur, ready);
+                } else if (!nonSingletons[cur] && objectDefinitions[cur] instanceof AsyncObjectDefinition) {
+                    futures.put(cur, ready.thenComposeAsync(v -> createObjectAsync(cur), executor));
+                } else {
+                    futures.put(cur, ready.thenApplyAsync(v -> doGetObject(cur), executor));
+                }
+            }
         }
-        return params;
+
+        return futures;
     }
 
     /**
-     * 创建/获取容器中的对象
-     * 循环依赖处理的核心算法
+     * 并发模式下异步创建单个AsyncObjectDefinition定义的单例对象，调用前该对象的所有实例化依赖项都已创建完成
      *
-     * 对象创建步骤：
-     * 1. 查找一级缓存，如果找到则直接返回
-     * 2. 查找二级缓存，如果找到，则取出对象工厂，执行代理操作，然后把代理后的对象移入一级缓存，
-     *    并返回代理后的对象
-     * 3. 如果两级缓存都没找到，说明对象是第一次创建，依次执行下面的步骤：
-     *      1) 调用ObjectDefinition的getInstanceDependencies方法，获取对象实例化所需的依赖项
-     *      2) 递归调用Container的getObject方法创建依赖项
-     *      3) 调用ObjectDefinition的getInstance方法创建对象实例
-     *      4) 使用对象工厂包装刚刚创建的对象实例，工厂内部调用ObjectDefinition的doWrap方法创建代理
-     *      5) 把对象工厂放入二级缓存
-     *      6) 调用ObjectDefinition的doInit方法初始化对象（属性填充）
-     *      7) 再次尝试从缓存中获取对象，这次一定能够获取到
-     */
-    private Object createOrGetObject(String id, ObjectDefinition definition) {
-        // 查找一级缓存，如果找到则直接返回
-        if (cache1.containsKey(id)) {
-            return cache1.get(id);
-        }
-
-        // 查找二级缓存，如果找到则调用get方法，然后把二级缓存移动到一级缓存
-        if (cache2.containsKey(id)) {
-            Object obj = cache2.get(id).get();
-            cache2.remove(id);
-            cache1.put(id, obj);
-            return obj;
+     * 对象创建步骤与createObject相同，区别在于：
+     * 1. 通过CAS登记创建过程时不指定创建线程，等待I/O期间没有线程可以访问二级缓存
+     * 2. 实例化完成后，把对象工厂放入二级缓存，并把当前线程设为创建线程后调用doInitAsync，
+     *    因此在doInitAsync返回之前，当前线程可以通过二级缓存获取该对象；
+     *    doInitAsync返回之后，继续执行初始化的线程为了创建其他对象而需要该对象时，也通过二级缓存获取（见awaitCreation）
+     * 3. doInitAsync完成后，把对象移入一级缓存，然后移除创建过程
+     */
+    private CompletableFuture<Object> createObjectAsync(int index) {
+        AsyncObjectDefinition definition = (AsyncObjectDefinition) objectDefinitions[index];
+        Creation creation = new Creation(index, null);
+        while (!creatingObjects.compareAndSet(index, null, creation)) {
+            Creation other = creatingObjects.get(index);
+            if (other != null) {
+                return other.future;
+            }
         }
 
-        // 获取并创建对象实例化的依赖项
-        Object[] params = createDependencies(definition.getInstanceDependencies());
+        // 登记之前对象可能刚好创建完成
+        Object cached = cache1.get(index);
+        if (cached != null) {
+            creatingObjects.set(index, null);
+            creation.future.complete(unmask(cached));
+            return creation.future;
+        }
 
-        // 查找一级缓存和二级缓存，如果找到则直接返回
-        if (cache1.containsKey(id)) {
-            return cache1.get(id);
+        CompletionStage<Void> init;
+        try {
+            init = definition.getInstanceAsync(getParams(index)).thenCompose(obj -> {
+                creation.owner = Thread.currentThread();
+                try {
+                    cache2[index] = memoize(() -> definition.doWrap(obj));
+                    return definition.doInitAsync(obj);
+                } finally {
+                    creation.owner = null;
+                }
+            });
+        } catch (RuntimeException e) {
+            init = CompletableFuture.failedFuture(e);
         }
-        if (cache2.containsKey(id)) {
-            Object obj = cache2.get(id).get();
-            cache2.remove(id);
-            cache1.put(id, obj);
-            return obj;
+
+        init.whenComplete((v, e) -> {
+            Throwable error = e;
+            try {
+                if (error == null) {
+                    cache1.set(index, mask(cache2[index].get()));
+                }
+            } catch (RuntimeException ex) {
+                error = ex;
+            } finally {
+                cache2[index] = null;
+                creatingObjects.set(index, null);
+            }
+
+            if (error == null) {
+                creation.future.complete(unmask(cache1.get(index)));
+            } else {
+                creation.future.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+            }
+        });
+        return creation.future;
+    }
+
+    @Override
+    public <T> ObjectHandle<T> handle(String id, Class<T> type) {
+        checkCircularDependencyAndFreezeContainer();
+        Integer index = indexes.get(id);
+        if (index == null) {
+            if (parent != null) {
+                return parent.handle(id, type);
+            }
+            throw new IdNotFoundException(id);
+        }
+        if (!type.isAssignableFrom(objectDefinitions[index].getType())) {
+            throw new TypeNotFoundException(type);
         }
+        return new IndexedObjectHandle<>(index);
+    }
 
-        // 实例化对象
-        Object obj = definition.getInstance(params);
+    @Override
+    public <T> ObjectHandle<T> handle(Class<T> type) {
+        checkCircularDependencyAndFreezeContainer();
+        if (parent != null && template.resolveType(type).length == 0) {
+            return parent.handle(template.getParentTypeId(type), type);
+        }
+        return new IndexedObjectHandle<>(template.getTypeIndex(type));
+    }
+
+    /**
+     * 通过对象编号直接访问一级缓存的ObjectHandle
+     */
+    private class IndexedObjectHandle<T> implements ObjectHandle<T> {
+        private final int index;
 
-        // 将实例化后的对象加入二级缓存
-        cache2.put(id, () -> definition.doWrap(obj));
+        private IndexedObjectHandle(int index) {
+            this.index = index;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get() {
+            return (T) doGetObject(index);
+        }
 
-        // 初始化对象
-        definition.doInit(obj);
+        @Override
+        public String getId() {
+            return ids[index];
+        }
+    }
 
-        return createOrGetObject(id, definition);
+    @Override
+    public <T> ObjectLease<T> lease(String id) {
+        ObjectPool pool = getPool(id);
+        if (pool == null) {
+            return parent.lease(id);
+        }
+        try {
+            return new PooledObjectLease<>(pool, pool.borrow());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PoolExhaustedException(id, e);
+        }
+    }
+
+    @Override
+    public <T> ObjectLease<T> lease(String id, long timeout, TimeUnit unit) {
+        ObjectPool pool = getPool(id);
+        if (pool == null) {
+            return parent.lease(id, timeout, unit);
+        }
+        Object obj;
+        try {
+            obj = pool.borrow(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PoolExhaustedException(id, e);
+        }
+        if (obj == null) {
+            throw new PoolExhaustedException(id);
+        }
+        return new PooledObjectLease<>(pool, obj);
+    }
+
+    @Override
+    public PoolMetrics getPoolMetrics(String id) {
+        ObjectPool pool = getPool(id);
+        if (pool == null) {
+            return parent.getPoolMetrics(id);
+        }
+        return pool.getMetrics();
     }
 
     /**
-     * 获取类型对应的id
+     * 获取id对应的对象池
+     * @return 对象池，如果id属于父容器则返回null
      */
-    private String getTypeId(Class<?> type) {
-        List<String> candidates = definitions.keySet().stream()
-                .filter(id -> type.isAssignableFrom(definitions.get(id).getType()))
-                .collect(Collectors.toList());
+    private ObjectPool getPool(String id) {
+        checkCircularDependencyAndFreezeContainer();
+        Integer index = indexes.get(id);
+        if (index == null) {
+            if (parent != null) {
+                return null;
+            }
+            throw new IdNotFoundException(id);
+        }
+        if (pools[index] == null) {
+            throw new NotPooledException(id);
+        }
+        return pools[index];
+    }
 
-        if (candidates.size() == 0) {
-            throw new TypeNotFoundException(type);
-        } else if (candidates.size() > 1) {
-            throw new MultiTypeMatchException(type);
+    /**
+     * 从对象池中借出的对象
+     */
+    private static class PooledObjectLease<T> implements ObjectLease<T> {
+        private final ObjectPool pool;
+        private final Object obj;
+        private boolean closed = false;
+
+        private PooledObjectLease(ObjectPool pool, Object obj) {
+            this.pool = pool;
+            this.obj = obj;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get() {
+            return (T) unmask(obj);
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                pool.giveBack(obj);
+            }
         }
+    }
 
-        return candidates.get(0);
+    /**
+     * 冻结容器并提前创建所有单例对象
+     * 并发模式下使用公共ForkJoinPool并发创建，否则按依赖顺序依次创建
+     */
+    public void preInstantiate() {
+        preInstantiate(concurrent ? ForkJoinPool.commonPool() : null);
     }
 
     /**
-     * 循环依赖检测
+     * 冻结容器并提前创建所有单例对象
      *
-     * 步骤：
-     * 1. 调用容器中所有ObjectDefinition的getInstanceDependencies，获取所有对象的实例化依赖项，
-     *    将依赖关系转换成一张有向图
-     * 2. 使用拓扑排序的顺序依次删除图中的节点，直到不能再删为止
-     * 3. 如果还存在未删除的节点，说明依赖图中存在环路，即产生了循环依赖
-     */
-    private void checkCircularDependency() {
-        // 初始化邻接表矩阵
-        int n = definitions.size();
-        boolean[][] adj = new boolean[n][n];
-        for (int i = 0; i < n; ++i) {
-            for (int j = 0; j < n; ++j) {
-                adj[i][j] = false;
+     * 并发模式下，所有单例对象按照实例化依赖图在pool中异步创建（见getObjectAsync），
+     * 每个对象在它的所有依赖项完成之后立即开始创建，互不依赖的对象并发创建，
+     * AsyncObjectDefinition定义的对象的I/O可以重叠进行。
+     * 非并发模式或pool为null时按依赖顺序依次创建。
+     *
+     * @param pool 用于创建对象的线程池
+     */
+    public void preInstantiate(ForkJoinPool pool) {
+        checkCircularDependencyAndFreezeContainer();
+
+        if (!concurrent || pool == null) {
+            for (int i : creationOrder) {
+                if (!nonSingletons[i]) {
+                    doGetObject(i);
+                }
             }
+            return;
         }
 
-        // 获取容器中所有对象id
-        List<String> ids = new ArrayList<>(definitions.keySet());
+        int[] roots = Arrays.stream(creationOrder).filter(i -> !nonSingletons[i]).toArray();
+        Collection<CompletableFuture<?>> futures = createObjectsAsync(roots, pool).values();
+        FutureUtils.join(CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])));
+    }
 
-        // 构建对象的构造函数依赖图
-        for (int i = 0; i < n; ++i) {
-            String id = ids.get(i);
-            Dependency[] dependencies = definitions.get(id).getInstanceDependencies();
-            for (Dependency dep : dependencies) {
-                if (dep.getId() != null) {
-                    int j = ids.indexOf(dep.getId());
-                    if (j < 0) {
-                        throw new IdNotFoundException(dep.getId());
-                    }
-                    adj[i][j] = true;
-                } else if (dep.getType() != null) {
-                    int j = ids.indexOf(getTypeId(dep.getType()));
-                    if (j < 0) {
-                        throw new TypeNotFoundException(dep.getType());
+    @Override
+    public Set<String> getObjectIds() {
+        Set<String> ids = new HashSet<>(definitions.keySet());
+        if (parent != null) {
+            ids.addAll(parent.getObjectIds());
+        }
+        return ids;
+    }
+
+    @Override
+    public Set<Class<?>> getObjectTypes() {
+        if (parent != null) {
+            return getObjectIds().stream()
+                    .map(id -> getObjectDefinition(id).getType())
+                    .collect(Collectors.toSet());
+        }
+        return definitions.values().stream()
+                .map(ObjectDefinition::getType)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * 获取对象
+     * 一级缓存命中时直接返回，不需要加锁
+     */
+    private Object doGetObject(int index) {
+        Object obj = cache1.get(index);
+        if (obj != null) {
+            return unmask(obj);
+        }
+        if (nonSingletons[index]) {
+            return getScopedObject(index);
+        }
+        return createOrGetObject(index);
+    }
+
+    /**
+     * 获取非单例对象
+     * 线程作用域的对象从当前线程中获取，其他作用域每次都创建新的对象
+     */
+    private Object getScopedObject(int index) {
+        if (threadScoped[index]) {
+            Object obj = getThreadObjects()[index];
+            if (obj != null) {
+                return unmask(obj);
+            }
+        }
+        return createPrototype(index);
+    }
+
+    /**
+     * 获取当前线程的线程作用域对象
+     */
+    private Object[] getThreadObjects() {
+        Object[] objects = threadObjects.get();
+        if (objects == null) {
+            objects = new Object[ids.length];
+            threadObjects.set(objects);
+        }
+        return objects;
+    }
+
+    /**
+     * 依赖项是否需要在创建原型对象时一起创建：非单例对象，并且不是当前线程中已有的线程作用域对象
+     */
+    private boolean isPendingScopedObject(int index) {
+        return nonSingletons[index] && !(threadScoped[index] && getThreadObjects()[index] != null);
+    }
+
+    @Override
+    public void clearThreadObjects() {
+        threadObjects.remove();
+    }
+
+    /**
+     * 创建原型对象
+     * 原型对象不经过一级缓存和二级缓存，直接使用冻结容器时解析好的依赖项编号创建依赖项，
+     * 然后依次执行实例化、初始化和包装
+     *
+     * 与createOrGetObject相同，使用显式栈代替递归：栈中的每一帧保存一个待创建的非单例对象、
+     * 下一个待获取的实例化参数位置和已获取的参数。非单例的依赖项压栈创建，创建完成后填入上一帧的参数；
+     * 单例依赖项直接获取，createOrGetObject已经预先创建了非单例对象下的所有单例对象，因此不会出现深层递归。
+     * 线程作用域的对象创建完成后保存到当前线程
+     *
+     * 注意：原型对象无法解决属性填充中的循环依赖
+     */
+    private Object createPrototype(int index) {
+        int[] nodes = new int[4];
+        int[] next = new int[4];
+        Object[][] args = new Object[4][];
+        int sp = 0;
+        nodes[sp] = index;
+        args[sp] = new Object[parameters[index].length];
+        next[sp++] = 0;
+
+        while (true) {
+            int cur = nodes[sp - 1];
+            int[] parameters = this.parameters[cur];
+            int pos = next[sp - 1];
+            if (pos < parameters.length) {
+                int p = parameters[pos];
+                if (p >= 0 && isPendingScopedObject(p)) {
+                    if (sp == nodes.length) {
+                        nodes = Arrays.copyOf(nodes, sp * 2);
+                        next = Arrays.copyOf(next, sp * 2);
+                        args = Arrays.copyOf(args, sp * 2);
                     }
-                    adj[i][j] = true;
+                    nodes[sp] = p;
+                    args[sp] = new Object[this.parameters[p].length];
+                    next[sp++] = 0;
                 } else {
-                    throw new BadDependencyException(dep);
+                    args[sp - 1][pos] = p >= 0 ? doGetObject(p) : resolveParameterSlot(parameterSlots[-1 - p]);
+                    next[sp - 1] = pos + 1;
                 }
+                continue;
             }
+
+            ObjectDefinition definition = objectDefinitions[cur];
+            Object obj = definition.getInstance(args[sp - 1]);
+            ObjectCallbackContext ctx = createContext(definition, obj);
+            doInit(definition, ctx, obj);
+            obj = doWrap(definition, ctx, obj);
+            if (threadScoped[cur]) {
+                getThreadObjects()[cur] = mask(obj);
+            }
+
+            args[--sp] = null;
+            if (sp == 0) {
+                return obj;
+            }
+            args[sp - 1][next[sp - 1]++] = obj;
         }
+    }
 
-        // in存储所有节点的入度
-        // all集合存储当前还未排序的节点编号
-        // ready集合存储当前入度为0的节点
-        int[] in = new int[n];
-        Set<Integer> all = new HashSet<>();
-        List<Integer> ready = new ArrayList<>();
-        for (int i = 0; i < n; ++i) {
-            all.add(i);
-            in[i] = 0;
+    /**
+     * 创建对象的回调上下文，同一个对象的初始化回调和包装回调共用该上下文，上下文中的容器为当前容器
+     * @return 回调上下文，对象定义没有回调链时返回null
+     */
+    private ObjectCallbackContext createContext(ObjectDefinition definition, Object obj) {
+        if (definition instanceof CallbackObjectDefinition) {
+            return ((CallbackObjectDefinition) definition).createContext(this, obj);
         }
-        for (int i = 0; i < n; ++i) {
-            for (int j = 0; j < n; ++j) {
-                if (adj[i][j]) {
-                    in[j]++;
+        return null;
+    }
+
+    /**
+     * 初始化对象，带有回调链的ObjectDefinition使用createContext创建的上下文
+     */
+    private void doInit(ObjectDefinition definition, ObjectCallbackContext ctx, Object obj) {
+        if (ctx != null) {
+            ((CallbackObjectDefinition) definition).doInit(ctx, obj);
+        } else {
+            definition.doInit(obj);
+        }
+    }
+
+    /**
+     * 包装对象，带有回调链的ObjectDefinition使用createContext创建的上下文
+     */
+    private Object doWrap(ObjectDefinition definition, ObjectCallbackContext ctx, Object obj) {
+        if (ctx != null) {
+            return ((CallbackObjectDefinition) definition).doWrap(ctx, obj);
+        }
+        return definition.doWrap(obj);
+    }
+
+    private static Object mask(Object obj) {
+        return obj == null ? NULL : obj;
+    }
+
+    private static Object unmask(Object obj) {
+        return obj == NULL ? null : obj;
+    }
+
+    /**
+     * 创建只执行一次的对象工厂
+     * 异步初始化期间，访问者线程和继续执行初始化的线程可能同时调用，因此需要加锁；
+     * 使用ReentrantLock而不是synchronized，执行doWrap期间等待的虚拟线程不会占用载体线程
+     */
+    private static Supplier<Object> memoize(Supplier<Object> supplier) {
+        return new Supplier<>() {
+            private final Lock lock = new ReentrantLock();
+            private volatile boolean done = false;
+            private Object value;
+
+            @Override
+            public Object get() {
+                if (!done) {
+                    lock.lock();
+                    try {
+                        if (!done) {
+                            value = supplier.get();
+                            done = true;
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
                 }
+                return value;
             }
+        };
+    }
+
+    /**
+     * 从缓存中获取当前线程可见的对象
+     * 并发模式下，只有正在创建该对象的线程才能访问二级缓存
+     * @return 经过mask的对象，如果对象还未创建则返回null
+     */
+    private Object peekObject(int index) {
+        Object obj = cache1.get(index);
+        if (obj != null) {
+            return obj;
         }
-        for (int i = 0; i < n; ++i) {
-            if (in[i] == 0) {
-                ready.add(i);
+        if (!concurrent || isCreatingThread(index)) {
+            Supplier<Object> factory = cache2[index];
+            if (factory != null) {
+                return mask(factory.get());
             }
         }
+        return null;
+    }
 
-        // 按照拓扑排序的顺序删除节点
-        while (!ready.isEmpty()) {
-            int cur = ready.remove(0);
-            all.remove(cur);
-            for (int i = 0; i < n; ++i) {
-                if (adj[cur][i]) {
-                    in[i]--;
-                    if (in[i] == 0) {
-                        ready.add(i);
-                    }
+    /**
+     * 当前线程是否正在创建该对象
+     */
+    private boolean isCreatingThread(int index) {
+        Creation creation = creatingObjects.get(index);
+        if (creation == null) {
+            return false;
+        }
+        Thread current = Thread.currentThread();
+        return creation.owner == current || creation.guests.contains(current);
+    }
+
+    /**
+     * 创建/获取容器中的对象
+     * 使用显式栈代替递归，按照实例化依赖图的拓扑顺序依次创建对象及其依赖项
+     *
+     * 栈中的每一帧保存一个待创建的对象编号，以及下一个待检查的依赖项位置：
+     * 1. 如果栈顶对象已经可以从缓存中获取，则直接出栈
+     * 2. 如果栈顶对象还有未创建的依赖项，则把该依赖项压栈
+     * 3. 否则栈顶对象的依赖项都已创建完成，出栈并创建该对象
+     *
+     * 非单例对象在实例化时才创建（见createPrototype），这里只把它们作为中间节点压栈，
+     * 从而预先创建它们依赖的单例对象，出栈时不创建非单例对象本身
+     *
+     * 并发模式下，创建对象前先通过CAS登记创建过程，登记失败说明其他线程正在创建该对象，
+     * 此时等待其创建完成（见awaitCreation）后重新检查栈顶对象
+     *
+     * 由于冻结容器时已经检测过循环依赖，并且解析了所有依赖项的编号，
+     * 所以该过程不需要再次检查id和类型
+     */
+    private Object createOrGetObject(int index) {
+        int[] nodes = new int[4];
+        int[] next = new int[4];
+        int sp = 0;
+        nodes[sp] = index;
+        next[sp++] = 0;
+
+        while (sp > 0) {
+            int cur = nodes[sp - 1];
+            if (peekObject(cur) != null) {
+                sp--;
+                continue;
+            }
+
+            // 查找下一个未创建的依赖项
+            int[] dependencies = instanceDependencies[cur];
+            int pos = next[sp - 1];
+            while (pos < dependencies.length && peekObject(dependencies[pos]) != null) {
+                pos++;
+            }
+
+            if (pos < dependencies.length) {
+                // 跳过压栈的依赖项，非单例依赖项出栈后仍然不在缓存中
+                next[sp - 1] = pos + 1;
+                if (sp == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, sp * 2);
+                    next = Arrays.copyOf(next, sp * 2);
+                }
+                nodes[sp] = dependencies[pos];
+                next[sp++] = 0;
+                continue;
+            }
+            next[sp - 1] = pos;
+
+            if (nonSingletons[cur]) {
+                sp--;
+                continue;
+            }
+
+            if (!concurrent) {
+                sp--;
+                createObject(cur);
+                continue;
+            }
+
+            Creation creation = new Creation(cur, Thread.currentThread());
+            if (!creatingObjects.compareAndSet(cur, null, creation)) {
+                Creation other = creatingObjects.get(cur);
+                if (other != null) {
+                    awaitCreation(other, cur != index);
                 }
+                continue;
+            }
+
+            sp--;
+            try {
+                createObject(cur);
+                creatingObjects.set(cur, null);
+                creation.future.complete(unmask(cache1.get(cur)));
+            } catch (RuntimeException | Error e) {
+                cache2[cur] = null;
+                creatingObjects.set(cur, null);
+                creation.future.completeExceptionally(e);
+                throw e;
             }
         }
 
-        // 如果还有未排序的节点，说明依赖图中存在环路，即发生了循环依赖
-        if (!all.isEmpty()) {
-            // 获取构成循环依赖的对象id
+        return unmask(peekObject(index));
+    }
+
+    /**
+     * 等待其他线程完成对象的创建
+     *
+     * 多个线程在各自对象的初始化过程（doInit）中互相获取对方的对象时，直接等待会导致死锁。
+     * 因此在等待之前，沿着等待关系检查：该创建过程的创建线程正在等待哪个创建过程，
+     * 那个创建过程的创建线程又在等待哪个创建过程……如果最终回到当前线程，说明出现了跨线程的循环等待。
+     * 此时当前线程不再等待，而是成为该创建过程的访问者，直接使用二级缓存中的早期引用完成自己的创建，
+     * 其他线程则继续等待当前线程的结果，效果与单线程中通过二级缓存解决循环依赖相同。
+     * 如果该对象还未完成实例化（不存在早期引用），则抛出CircularDependencyException。
+     *
+     * 异步初始化（AsyncObjectDefinition的doInitAsync）期间创建过程没有创建线程，
+     * 返回的CompletionStage可能在任意线程中继续执行，并在那里获取依赖该对象的其他对象，
+     * 此时无法通过等待关系判断是否出现循环等待。因此当前线程为了创建其他对象而需要该对象时
+     * （该对象是被获取对象的依赖项，或者当前线程正在创建其他对象），直接成为访问者并使用早期引用，
+     * 否则等待初始化完成，保证通过getObject直接获取到的对象都已完成初始化。
+     *
+     * 只有需要等待时才会获取waitLock，已创建对象的获取和无竞争的创建都不受影响
+     * @param creation 等待的创建过程
+     * @param dependency 该对象是否为当前获取的对象的依赖项
+     */
+    private void awaitCreation(Creation creation, boolean dependency) {
+        Thread current = Thread.currentThread();
+        waitLock.lock();
+        try {
+            if (creation.owner == null && cache2[creation.index] != null
+                    && (dependency || isCreatingAnyObject(current))) {
+                addGuest(creation, current);
+                return;
+            }
+
             List<String> circularIds = new ArrayList<>();
-            for (int i : all) {
-                circularIds.add(ids.get(i));
+            Creation c = creation;
+            while (c != null) {
+                circularIds.add(ids[c.index]);
+                Thread owner = c.owner;
+                if (owner == null) {
+                    break;
+                }
+                if (owner == current) {
+                    if (cache2[creation.index] == null) {
+                        throw new CircularDependencyException(circularIds);
+                    }
+                    addGuest(creation, current);
+                    return;
+                }
+                c = waits.get(owner);
             }
-            throw new CircularDependencyException(circularIds);
+            waits.put(current, creation);
+        } finally {
+            waitLock.unlock();
         }
+
+        try {
+            FutureUtils.join(creation.future);
+        } finally {
+            waitLock.lock();
+            try {
+                waits.remove(current);
+            } finally {
+                waitLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 把线程加入创建过程的访问者，调用时必须持有waitLock
+     */
+    private static void addGuest(Creation creation, Thread thread) {
+        Set<Thread> guests = new HashSet<>(creation.guests);
+        guests.add(thread);
+        creation.guests = guests;
+    }
+
+    /**
+     * 线程是否正在创建某个对象
+     * 只在等待异步初始化的对象时调用
+     */
+    private boolean isCreatingAnyObject(Thread thread) {
+        for (int i = 0; i < creatingObjects.length(); ++i) {
+            Creation creation = creatingObjects.get(i);
+            if (creation != null && creation.owner == thread) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取实例化依赖项，调用前所有单例依赖项都已创建完成，非单例依赖项按照其作用域获取
+     */
+    private Object[] getParams(int index) {
+        int[] parameters = this.parameters[index];
+        Object[] params = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; ++i) {
+            int p = parameters[i];
+            if (p < 0) {
+                params[i] = resolveParameterSlot(parameterSlots[-1 - p]);
+            } else {
+                params[i] = nonSingletons[p] ? getScopedObject(p) : unmask(peekObject(p));
+            }
+        }
+        return params;
+    }
+
+    /**
+     * 获取特殊参数的值
+     */
+    private Object resolveParameterSlot(ParameterSlot slot) {
+        switch (slot.kind) {
+            case PROVIDER:
+                return new IndexedProvider<>(slot.target);
+            case LAZY:
+                return LazyProxies.create(slot.type, new IndexedProvider<>(slot.target));
+            case ALL:
+                Object[] objects = new Object[slot.targets.length];
+                for (int i = 0; i < objects.length; ++i) {
+                    objects[i] = doGetObject(slot.targets[i]);
+                }
+                return Collections.unmodifiableList(Arrays.asList(objects));
+            default:
+                throw new IllegalStateException("Unknown parameter kind: " + slot.kind);
+        }
+    }
+
+    /**
+     * 通过对象编号获取对象的Provider，第一次调用get时获取对象并缓存
+     */
+    private class IndexedProvider<T> implements Provider<T> {
+        private final int index;
+        private volatile Object value;
+
+        private IndexedProvider(int index) {
+            this.index = index;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get() {
+            Object v = value;
+            if (v == null) {
+                v = mask(doGetObject(index));
+                value = v;
+            }
+            return (T) unmask(v);
+        }
+    }
+
+    /**
+     * 创建单个对象，调用前该对象的所有实例化依赖项都已创建完成
+     *
+     * 对象创建步骤：
+     * 1. 再次查找缓存，如果找到则说明对象已被创建（被其他线程创建，或在创建依赖项时被创建）
+     * 2. 从缓存中获取实例化依赖项（非单例依赖项则按照其作用域获取），调用ObjectDefinition的getInstance方法创建对象实例
+     * 3. 使用对象工厂包装刚刚创建的对象实例，工厂内部调用ObjectDefinition的doWrap方法创建代理（只执行一次）
+     * 4. 把对象工厂放入二级缓存，此时其他对象可以通过二级缓存获取该对象，从而解决循环依赖
+     * 5. 调用ObjectDefinition的doInit方法初始化对象（属性填充）
+     * 6. 从二级缓存中取出代理后的对象，移入一级缓存
+     *
+     * 一级缓存中只会存放已完全初始化的对象，因此其他线程可以无锁读取
+     */
+    private void createObject(int index) {
+        if (peekObject(index) != null) {
+            return;
+        }
+
+        ObjectDefinition definition = objectDefinitions[index];
+        Object[] params = getParams(index);
+        if (peekObject(index) != null) {
+            return;
+        }
+
+        Object obj = definition.getInstance(params);
+        ObjectCallbackContext ctx = createContext(definition, obj);
+        cache2[index] = memoize(() -> doWrap(definition, ctx, obj));
+        doInit(definition, ctx, obj);
+        cache1.set(index, mask(cache2[index].get()));
+        cache2[index] = null;
     }
 }
@@ -8,7 +8,17 @@ import java.util.List;
  * @author byx
  */
 public class CircularDependencyException extends ByxContainerException {
+    private final List<String> ids;
+
     public CircularDependencyException(List<String> ids) {
         super("An unresolvable circular dependency was detected: " + ids);
+        this.ids = ids;
+    }
+
+    /**
+     * 获取构成循环依赖的对象id
+     */
+    public List<String> getIds() {
+        return ids;
     }
 }
@@ -0,0 +1,16 @@
+package byx.ioc.exception;
+
+/**
+ * 找不到合适的构造函数
+ *
+ * @author byx
+ */
+public class ConstructorNotFoundException extends ByxContainerException {
+    public ConstructorNotFoundException(Class<?> type, int parameterCount) {
+        super("There is no unique constructor of " + type + " with " + parameterCount + " parameters.");
+    }
+
+    public ConstructorNotFoundException(Class<?> type, Throwable cause) {
+        super("Cannot find the constructor of " + type + ".", cause);
+    }
+}
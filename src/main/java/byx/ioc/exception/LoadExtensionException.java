@@ -1,7 +1,19 @@
 package byx.ioc.exception;
 
 public class LoadExtensionException extends ByxContainerException {
+    private final String className;
+
     public LoadExtensionException(Throwable cause) {
         super("Error occurred when load extensions.", cause);
+        this.className = null;
+    }
+
+    public LoadExtensionException(String className, Throwable cause) {
+        super("Error occurred when load extension: " + className, cause);
+        this.className = className;
+    }
+
+    public String getClassName() {
+        return className;
     }
 }
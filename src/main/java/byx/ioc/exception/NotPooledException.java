@@ -0,0 +1,12 @@
+package byx.ioc.exception;
+
+/**
+ * 对象不是对象池作用域
+ *
+ * @author byx
+ */
+public class NotPooledException extends ByxContainerException {
+    public NotPooledException(String id) {
+        super("The object with id \"" + id + "\" is not pooled.");
+    }
+}
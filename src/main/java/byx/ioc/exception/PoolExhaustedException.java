@@ -0,0 +1,16 @@
+package byx.ioc.exception;
+
+/**
+ * 对象池中没有可以借出的对象
+ *
+ * @author byx
+ */
+public class PoolExhaustedException extends ByxContainerException {
+    public PoolExhaustedException(String id) {
+        super("Cannot lease object \"" + id + "\": the pool is exhausted.");
+    }
+
+    public PoolExhaustedException(String id, Throwable cause) {
+        super("Cannot lease object \"" + id + "\": interrupted while waiting.", cause);
+    }
+}
@@ -0,0 +1,28 @@
+package byx.ioc.util;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 异步任务工具类
+ *
+ * @author byx
+ */
+public class FutureUtils {
+    /**
+     * 等待异步任务完成，并抛出原始的运行时异常
+     * @param stage 异步任务
+     * @param <T> 结果类型
+     * @return 任务结果
+     */
+    public static <T> T join(CompletionStage<T> stage) {
+        try {
+            return stage.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
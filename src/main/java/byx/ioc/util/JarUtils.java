@@ -30,4 +30,13 @@ public class JarUtils {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * 获取类路径中第一个匹配的资源，找到后不再查找其余的Jar包
+     * @param resource 资源名
+     * @return 资源URL，不存在时返回null
+     */
+    public static URL getJarResource(String resource) {
+        return JarUtils.class.getClassLoader().getResource(resource);
+    }
 }
@@ -0,0 +1,99 @@
+package byx.ioc;
+
+import byx.ioc.core.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 加载类路径下声明的扩展
+ */
+public class ExtendableContainerFactoryTest2 {
+    private static final List<String> log = Collections.synchronizedList(new ArrayList<>());
+
+    public static class TestContainerCallback implements ContainerCallback {
+        @Override
+        public void afterContainerInit(Container container) {
+            if (container.getObjectIds().contains("test2")) {
+                log.add("container");
+            }
+        }
+    }
+
+    public static class TestObjectCallback implements ObjectCallback {
+        @Override
+        public boolean supports(String id, Class<?> type) {
+            return id.startsWith("test2");
+        }
+
+        @Override
+        public void afterObjectInit(ObjectCallbackContext ctx) {
+            log.add("init:" + ctx.getId());
+        }
+
+        @Override
+        public Object afterObjectWrap(ObjectCallbackContext ctx) {
+            log.add("wrap:" + ctx.getId());
+            return ctx.getObject();
+        }
+    }
+
+    private static class MyContainerFactory extends ExtendableContainerFactory {
+        @Override
+        protected void initContainer(Container container) {
+            container.registerObject("test2", new ObjectDefinition() {
+                @Override
+                public Class<?> getType() {
+                    return String.class;
+                }
+
+                @Override
+                public Object getInstance(Object[] params) {
+                    return "hello";
+                }
+            });
+
+            container.registerObject("other", new ObjectDefinition() {
+                @Override
+                public Class<?> getType() {
+                    return Integer.class;
+                }
+
+                @Override
+                public Object getInstance(Object[] params) {
+                    return 123;
+                }
+            });
+        }
+    }
+
+    @Test
+    public void test() {
+        log.clear();
+        Container c1 = new MyContainerFactory().create();
+        Container c2 = new MyContainerFactory().create();
+        assertEquals(List.of("container", "container"), log);
+
+        assertEquals("hello", c1.getObject("test2"));
+        assertEquals("hello", c2.getObject(String.class));
+        assertEquals(List.of("container", "container", "init:test2", "wrap:test2", "init:test2", "wrap:test2"), log);
+    }
+
+    /**
+     * 只对supports返回true的对象触发回调
+     */
+    @Test
+    public void test2() {
+        Container container = new MyContainerFactory().create();
+        ObjectDefinition definition = container.getObjectDefinition("other");
+        log.clear();
+        Integer i = container.getObject("other");
+        assertEquals(123, i);
+        assertTrue(log.isEmpty());
+        assertTrue(definition.getClass().getName().startsWith(MyContainerFactory.class.getName()));
+    }
+}
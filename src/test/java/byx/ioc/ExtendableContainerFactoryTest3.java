@@ -0,0 +1,146 @@
+package byx.ioc;
+
+import byx.ioc.core.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 同一个对象的回调链共用一个上下文
+ */
+public class ExtendableContainerFactoryTest3 {
+    private static final List<ObjectCallbackContext> contexts = Collections.synchronizedList(new ArrayList<>());
+    private static final List<Object> objects = Collections.synchronizedList(new ArrayList<>());
+
+    private static class InitCallback implements ObjectCallback {
+        @Override
+        public void afterObjectInit(ObjectCallbackContext ctx) {
+            contexts.add(ctx);
+            objects.add(ctx.getObject());
+        }
+    }
+
+    private static class WrapCallback1 implements ObjectCallback {
+        @Override
+        public Object afterObjectWrap(ObjectCallbackContext ctx) {
+            contexts.add(ctx);
+            objects.add(ctx.getObject());
+            return ctx.getObject() + "1";
+        }
+
+        @Override
+        public int getOrder() {
+            return 1;
+        }
+    }
+
+    private static class WrapCallback2 implements ObjectCallback {
+        @Override
+        public Object afterObjectWrap(ObjectCallbackContext ctx) {
+            contexts.add(ctx);
+            objects.add(ctx.getObject());
+            return ctx.getObject() + "2";
+        }
+
+        @Override
+        public int getOrder() {
+            return 2;
+        }
+    }
+
+    private static class MyContainerFactory extends ExtendableContainerFactory {
+        private MyContainerFactory() {
+            super(List.of(), List.of(new WrapCallback2(), new InitCallback(), new WrapCallback1()));
+        }
+
+        @Override
+        protected void initContainer(Container container) {
+            container.registerObject("test3", new ObjectDefinition() {
+                @Override
+                public Class<?> getType() {
+                    return String.class;
+                }
+
+                @Override
+                public Scope getScope() {
+                    return Scope.prototype();
+                }
+
+                @Override
+                public Object getInstance(Object[] params) {
+                    return "hello";
+                }
+            });
+        }
+    }
+
+    @Test
+    public void test() {
+        Container container = new MyContainerFactory().create();
+
+        contexts.clear();
+        objects.clear();
+        assertEquals("hello12", container.getObject("test3"));
+        assertEquals(3, contexts.size());
+        assertSame(contexts.get(0), contexts.get(1));
+        assertSame(contexts.get(0), contexts.get(2));
+        assertEquals(List.of("hello", "hello", "hello1"), objects);
+        assertEquals("hello", contexts.get(0).getObject());
+        assertEquals("test3", contexts.get(0).getId());
+        assertSame(container, contexts.get(0).getContainer());
+
+        assertEquals("hello12", container.getObject("test3"));
+        assertEquals(6, contexts.size());
+        assertNotSame(contexts.get(0), contexts.get(3));
+    }
+
+    /**
+     * 循环依赖中早期引用的包装先于初始化回调执行，初始化回调中获取的仍然是初始化后的对象
+     */
+    @Test
+    public void test2() {
+        List<Object> instances = new ArrayList<>();
+        Container container = new ExtendableContainerFactory(List.of(), List.of(new InitCallback(), new WrapCallback1())) {
+            @Override
+            protected void initContainer(Container container) {
+                container.registerObject("a", cyclic(container, "b"));
+                container.registerObject("b", cyclic(container, "a"));
+            }
+
+            private ObjectDefinition cyclic(Container container, String other) {
+                return new ObjectDefinition() {
+                    @Override
+                    public Class<?> getType() {
+                        return Object.class;
+                    }
+
+                    @Override
+                    public Object getInstance(Object[] params) {
+                        Object obj = new StringBuilder(other);
+                        instances.add(obj);
+                        return obj;
+                    }
+
+                    @Override
+                    public void doInit(Object obj) {
+                        container.getObject(other);
+                    }
+                };
+            }
+        }.create();
+
+        contexts.clear();
+        objects.clear();
+        assertEquals("b1", container.getObject("a"));
+        assertEquals("a1", container.getObject("b"));
+
+        // 包装a -> 初始化b -> 包装b -> 初始化a
+        assertEquals(List.of(instances.get(0), instances.get(1), instances.get(1), instances.get(0)), objects);
+        assertSame(contexts.get(0), contexts.get(3));
+        assertSame(instances.get(0), contexts.get(0).getObject());
+    }
+}
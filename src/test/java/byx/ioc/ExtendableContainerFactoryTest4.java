@@ -0,0 +1,116 @@
+package byx.ioc;
+
+import byx.ioc.core.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 每个工厂使用自己的扩展
+ */
+public class ExtendableContainerFactoryTest4 {
+    private static void register(Container container) {
+        container.registerObject("test2.s", new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return String.class;
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                return "hello";
+            }
+        });
+    }
+
+    /**
+     * 不使用任何扩展
+     */
+    private static class LeanContainerFactory extends ExtendableContainerFactory {
+        private LeanContainerFactory() {
+            super(List.of(), List.of());
+        }
+
+        @Override
+        protected void initContainer(Container container) {
+            register(container);
+        }
+    }
+
+    /**
+     * 显式指定扩展
+     */
+    private static class ExplicitContainerFactory extends ExtendableContainerFactory {
+        private ExplicitContainerFactory() {
+            super(List.of(c -> c.registerObject("extra", new ObjectDefinition() {
+                @Override
+                public Class<?> getType() {
+                    return Integer.class;
+                }
+
+                @Override
+                public Object getInstance(Object[] params) {
+                    return 123;
+                }
+            })), List.of(new ObjectCallback() {
+                @Override
+                public boolean supports(String id, Class<?> type) {
+                    return type == String.class;
+                }
+
+                @Override
+                public Object afterObjectWrap(ObjectCallbackContext ctx) {
+                    return ctx.getObject() + "!";
+                }
+            }));
+        }
+
+        @Override
+        protected void initContainer(Container container) {
+            register(container);
+        }
+    }
+
+    /**
+     * 过滤从类路径中发现的扩展
+     */
+    private static class FilteredContainerFactory extends ExtendableContainerFactory {
+        @Override
+        protected boolean acceptExtension(Class<?> extensionClass) {
+            return extensionClass != ExtendableContainerFactoryTest2.TestObjectCallback.class;
+        }
+
+        @Override
+        protected void initContainer(Container container) {
+            register(container);
+        }
+    }
+
+    /**
+     * 使用从类路径中发现的所有扩展
+     */
+    private static class FullContainerFactory extends ExtendableContainerFactory {
+        @Override
+        protected void initContainer(Container container) {
+            register(container);
+        }
+    }
+
+    @Test
+    public void test() {
+        assertEquals("hello", new LeanContainerFactory().create().getObject("test2.s"));
+
+        Container container = new ExplicitContainerFactory().create();
+        assertEquals("hello!", container.getObject("test2.s"));
+        Integer i = container.getObject("extra");
+        assertEquals(123, i);
+
+        // 被过滤的ObjectCallback不会包装对象定义
+        ObjectDefinition filtered = new FilteredContainerFactory().create().getObjectDefinition("test2.s");
+        assertTrue(filtered.getClass().getName().startsWith(ExtendableContainerFactoryTest4.class.getName()));
+        ObjectDefinition full = new FullContainerFactory().create().getObjectDefinition("test2.s");
+        assertFalse(full.getClass().getName().startsWith(ExtendableContainerFactoryTest4.class.getName()));
+    }
+}
@@ -0,0 +1,143 @@
+package byx.ioc;
+
+import byx.ioc.core.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 延迟加载扩展，并逐个报告加载失败的扩展
+ * 每个测试使用独立的类加载器，以便声明不同的扩展
+ */
+public class ExtendableContainerFactoryTest5 {
+    private static final String INITIALIZED = "byx.ioc.ExtendableContainerFactoryTest5.initialized";
+
+    public static class TrackedCallback implements ObjectCallback {
+        static {
+            System.setProperty(INITIALIZED, "true");
+        }
+    }
+
+    public static class BrokenCallback implements ObjectCallback {
+        public BrokenCallback() {
+            throw new IllegalStateException("broken");
+        }
+    }
+
+    public static class MyContainerFactory extends ExtendableContainerFactory {
+        @Override
+        protected void initContainer(Container container) {
+        }
+    }
+
+    public static class FilteringContainerFactory extends ExtendableContainerFactory {
+        @Override
+        protected boolean acceptExtension(String className) {
+            return !className.equals("byx.ioc.NoSuchCallback");
+        }
+
+        @Override
+        protected void initContainer(Container container) {
+        }
+    }
+
+    /**
+     * 创建只声明了指定ObjectCallback的类加载器
+     */
+    private static ClassLoader isolatedClassLoader(String objectCallbacks) throws Exception {
+        Path dir = Files.createTempDirectory("byx-extension");
+        try (Writer writer = Files.newBufferedWriter(dir.resolve("byx-container-extension.properties"))) {
+            writer.write("objectCallback=" + objectCallbacks);
+        }
+        return new URLClassLoader(new URL[]{
+                dir.toUri().toURL(),
+                ExtendableContainerFactory.class.getProtectionDomain().getCodeSource().getLocation(),
+                ExtendableContainerFactoryTest5.class.getProtectionDomain().getCodeSource().getLocation()
+        }, ClassLoader.getPlatformClassLoader());
+    }
+
+    private static Object newFactory(ClassLoader classLoader) throws Exception {
+        return newFactory(classLoader, MyContainerFactory.class);
+    }
+
+    private static Object newFactory(ClassLoader classLoader, Class<?> factoryClass) throws Exception {
+        return classLoader.loadClass(factoryClass.getName()).getConstructor().newInstance();
+    }
+
+    private static Object create(Object factory) throws Throwable {
+        try {
+            return factory.getClass().getMethod("create").invoke(factory);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 扩展类在第一次创建容器时才初始化
+     */
+    @Test
+    public void test1() throws Throwable {
+        System.clearProperty(INITIALIZED);
+        Object factory = newFactory(isolatedClassLoader(TrackedCallback.class.getName()));
+        assertNull(System.getProperty(INITIALIZED));
+
+        create(factory);
+        assertEquals("true", System.getProperty(INITIALIZED));
+    }
+
+    /**
+     * 所有加载失败的扩展都被报告
+     */
+    @Test
+    public void test2() throws Throwable {
+        Object factory = newFactory(isolatedClassLoader("byx.ioc.NoSuchCallback," + BrokenCallback.class.getName()));
+
+        Throwable e = assertThrows(RuntimeException.class, () -> create(factory));
+        assertEquals("byx.ioc.exception.LoadExtensionException", e.getClass().getName());
+
+        Set<String> messages = new HashSet<>();
+        messages.add(e.getMessage());
+        for (Throwable t : e.getSuppressed()) {
+            messages.add(t.getMessage());
+        }
+        assertEquals(Set.of(
+                "Error occurred when load extension: byx.ioc.NoSuchCallback",
+                "Error occurred when load extension: " + BrokenCallback.class.getName()
+        ), messages);
+
+        // 下次创建容器时再次报告
+        assertThrows(RuntimeException.class, () -> create(factory));
+    }
+
+    /**
+     * 扩展声明文件格式错误时报告LoadExtensionException，而不是类初始化错误
+     */
+    @Test
+    public void test3() throws Throwable {
+        Object factory = newFactory(isolatedClassLoader("\\uZZZZ"));
+
+        Throwable e1 = assertThrows(RuntimeException.class, () -> create(factory));
+        assertEquals("byx.ioc.exception.LoadExtensionException", e1.getClass().getName());
+        Throwable e2 = assertThrows(RuntimeException.class, () -> create(factory));
+        assertEquals("byx.ioc.exception.LoadExtensionException", e2.getClass().getName());
+    }
+
+    /**
+     * 被过滤的扩展加载失败时不报告
+     */
+    @Test
+    public void test4() throws Throwable {
+        ClassLoader classLoader = isolatedClassLoader("byx.ioc.NoSuchCallback");
+        assertNotNull(create(newFactory(classLoader, FilteringContainerFactory.class)));
+        assertThrows(RuntimeException.class, () -> create(newFactory(classLoader)));
+    }
+}
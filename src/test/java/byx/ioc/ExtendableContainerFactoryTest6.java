@@ -0,0 +1,60 @@
+package byx.ioc;
+
+import byx.ioc.core.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 通过工厂创建容器模板
+ */
+public class ExtendableContainerFactoryTest6 {
+    private static class MyContainerFactory extends ExtendableContainerFactory {
+        private final List<String> log;
+
+        private MyContainerFactory(List<String> log, List<Container> containers) {
+            super(List.of(c -> log.add("container")), List.of(new ObjectCallback() {
+                @Override
+                public Object afterObjectWrap(ObjectCallbackContext ctx) {
+                    containers.add(ctx.getContainer());
+                    return ctx.getObject() + "!";
+                }
+            }));
+            this.log = log;
+        }
+
+        @Override
+        protected void initContainer(Container container) {
+            log.add("init");
+            container.registerObject("s", new ObjectDefinition() {
+                @Override
+                public Class<?> getType() {
+                    return String.class;
+                }
+
+                @Override
+                public Object getInstance(Object[] params) {
+                    return "hello";
+                }
+            });
+        }
+    }
+
+    @Test
+    public void test() {
+        List<String> log = new ArrayList<>();
+        List<Container> containers = new ArrayList<>();
+        ContainerTemplate template = new MyContainerFactory(log, containers).createTemplate();
+        assertEquals(List.of("init", "container"), log);
+
+        Container c1 = template.newContainer();
+        Container c2 = template.newContainer();
+        assertEquals("hello!", c1.getObject("s"));
+        assertEquals("hello!", c2.getObject("s"));
+        assertEquals(List.of(c1, c2), containers);
+        assertEquals(List.of("init", "container"), log);
+    }
+}
@@ -0,0 +1,123 @@
+package byx.ioc;
+
+import byx.ioc.core.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 生成扩展索引文件
+ */
+public class ExtensionIndexGeneratorTest {
+    private static final String INITIALIZED = "byx.ioc.ExtensionIndexGeneratorTest.initialized";
+
+    public static class TrackedCallback implements ObjectCallback {
+        static {
+            System.setProperty(INITIALIZED, "true");
+        }
+    }
+
+    public static class MyContainerFactory extends ExtendableContainerFactory {
+        @Override
+        protected void initContainer(Container container) {
+        }
+    }
+
+    @Test
+    public void test() throws Exception {
+        Path dir = Files.createTempDirectory("byx-container");
+        Path file = ExtensionIndexGenerator.generateApplicationIndex(dir);
+        assertEquals(dir.resolve("META-INF/byx-container-extension.index"), file);
+
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        assertEquals("true", properties.getProperty("application"));
+        assertTrue(properties.getProperty("containerCallback")
+                .contains(ExtendableContainerFactoryTest2.TestContainerCallback.class.getName()));
+        assertTrue(properties.getProperty("objectCallback")
+                .contains(ExtendableContainerFactoryTest2.TestObjectCallback.class.getName()));
+
+        Files.delete(file);
+        Files.delete(file.getParent());
+        Files.delete(dir);
+    }
+
+    /**
+     * 在独立的类加载器中创建容器，类路径包含一个索引文件和一个扩展声明文件
+     * @return TrackedCallback是否被加载
+     */
+    private static boolean createContainer(String index, String declaration) throws Throwable {
+        Path indexDir = Files.createTempDirectory("byx-index");
+        Files.createDirectories(indexDir.resolve("META-INF"));
+        try (Writer writer = Files.newBufferedWriter(indexDir.resolve("META-INF/byx-container-extension.index"))) {
+            writer.write(index);
+        }
+        Path declarationDir = Files.createTempDirectory("byx-extension");
+        try (Writer writer = Files.newBufferedWriter(declarationDir.resolve("byx-container-extension.properties"))) {
+            writer.write(declaration);
+        }
+
+        ClassLoader classLoader = new URLClassLoader(new URL[]{
+                indexDir.toUri().toURL(),
+                declarationDir.toUri().toURL(),
+                ExtendableContainerFactory.class.getProtectionDomain().getCodeSource().getLocation(),
+                ExtensionIndexGeneratorTest.class.getProtectionDomain().getCodeSource().getLocation()
+        }, ClassLoader.getPlatformClassLoader());
+        Object factory = classLoader.loadClass(MyContainerFactory.class.getName()).getConstructor().newInstance();
+
+        System.clearProperty(INITIALIZED);
+        try {
+            factory.getClass().getMethod("create").invoke(factory);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+        return System.getProperty(INITIALIZED) != null;
+    }
+
+    /**
+     * 没有应用标记的索引（例如依赖的Jar包中的索引）被忽略
+     */
+    @Test
+    public void test2() throws Throwable {
+        assertTrue(createContainer("objectCallback=", "objectCallback=" + TrackedCallback.class.getName()));
+    }
+
+    /**
+     * 带有应用标记的索引代替扫描类路径
+     */
+    @Test
+    public void test3() throws Throwable {
+        assertTrue(createContainer("application=true\nobjectCallback=" + TrackedCallback.class.getName(), ""));
+        assertFalse(createContainer("application=true\nobjectCallback=", "objectCallback=" + TrackedCallback.class.getName()));
+    }
+
+    /**
+     * 系统属性指定的索引文件优先于类路径中的索引文件
+     */
+    @Test
+    public void test4() throws Throwable {
+        Path file = Files.createTempFile("byx-index", ".index");
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            writer.write("objectCallback=" + TrackedCallback.class.getName());
+        }
+
+        System.setProperty("byx.container.extension.index", file.toString());
+        try {
+            assertTrue(createContainer("application=true\nobjectCallback=", ""));
+        } finally {
+            System.clearProperty("byx.container.extension.index");
+            Files.delete(file);
+        }
+    }
+}
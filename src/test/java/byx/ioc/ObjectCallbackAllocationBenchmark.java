@@ -0,0 +1,104 @@
+package byx.ioc;
+
+import byx.ioc.core.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * 对象回调链的内存分配基准测试
+ * 统计通过ExtendableContainerFactory创建的原型对象每次创建时分配的字节数，
+ * 以及未被任何ObjectCallback作用的对象的分配字节数作为对照
+ *
+ * 运行方式：直接运行main方法
+ * 本例中的回调器不会让上下文逃逸，JIT可能通过逃逸分析消除上下文的分配，
+ * 加上-XX:-DoEscapeAnalysis参数运行可以看到真实的上下文分配开销
+ */
+public class ObjectCallbackAllocationBenchmark {
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+
+    /**
+     * 作用于bench开头的对象，本身不分配内存
+     */
+    private static class BenchmarkCallback1 implements ObjectCallback {
+        @Override
+        public boolean supports(String id, Class<?> type) {
+            return id.startsWith("bench");
+        }
+
+        @Override
+        public void afterObjectInit(ObjectCallbackContext ctx) {
+        }
+
+        @Override
+        public Object afterObjectWrap(ObjectCallbackContext ctx) {
+            return ctx.getObject();
+        }
+    }
+
+    private static class BenchmarkCallback2 extends BenchmarkCallback1 {
+    }
+
+    private static class MyContainerFactory extends ExtendableContainerFactory {
+        private MyContainerFactory() {
+            super(List.of(), List.of(new BenchmarkCallback1(), new BenchmarkCallback2()));
+        }
+
+        @Override
+        protected void initContainer(Container container) {
+            container.registerObject("bench", new ObjectDefinition() {
+                @Override
+                public Class<?> getType() {
+                    return Object.class;
+                }
+
+                @Override
+                public Scope getScope() {
+                    return Scope.prototype();
+                }
+
+                @Override
+                public Object getInstance(Object[] params) {
+                    return "";
+                }
+            });
+
+            container.registerObject("plain", new ObjectDefinition() {
+                @Override
+                public Class<?> getType() {
+                    return Object.class;
+                }
+
+                @Override
+                public Scope getScope() {
+                    return Scope.prototype();
+                }
+
+                @Override
+                public Object getInstance(Object[] params) {
+                    return "";
+                }
+            });
+        }
+    }
+
+    private static long measure(ObjectHandle<Object> handle) {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP; ++i) {
+            handle.get();
+        }
+        long before = bean.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < ITERATIONS; ++i) {
+            handle.get();
+        }
+        return (bean.getThreadAllocatedBytes(tid) - before) / ITERATIONS;
+    }
+
+    public static void main(String[] args) {
+        Container container = new MyContainerFactory().create();
+        System.out.println("with callbacks:    " + measure(container.handle("bench", Object.class)) + " bytes/object");
+        System.out.println("without callbacks: " + measure(container.handle("plain", Object.class)) + " bytes/object");
+    }
+}
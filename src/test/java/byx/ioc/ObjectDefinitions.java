@@ -0,0 +1,40 @@
+package byx.ioc;
+
+import byx.ioc.core.Dependency;
+import byx.ioc.core.ObjectDefinition;
+
+import java.util.function.Function;
+
+/**
+ * 测试中共用的对象定义
+ */
+final class ObjectDefinitions {
+    private ObjectDefinitions() {
+    }
+
+    /**
+     * 创建对象定义
+     * @param type 对象类型
+     * @param factory 根据实例化参数创建对象
+     * @param dependencies 实例化依赖项
+     * @return 对象定义
+     */
+    static ObjectDefinition definition(Class<?> type, Function<Object[], Object> factory, Dependency... dependencies) {
+        return new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return type;
+            }
+
+            @Override
+            public Dependency[] getInstanceDependencies() {
+                return dependencies;
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                return factory.apply(params);
+            }
+        };
+    }
+}
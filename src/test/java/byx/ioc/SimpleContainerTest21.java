@@ -0,0 +1,169 @@
+package byx.ioc;
+
+import byx.ioc.core.Container;
+import byx.ioc.core.Dependency;
+import byx.ioc.core.ObjectDefinition;
+import byx.ioc.core.SimpleContainer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 并发模式
+ */
+public class SimpleContainerTest21 {
+    private static class A {
+        B b;
+    }
+
+    private static class B {
+        A a;
+    }
+
+    private static class C {
+        private final A a;
+
+        private C(A a) {
+            this.a = a;
+        }
+    }
+
+    /**
+     * 多个线程同时获取同一个对象，对象只创建一次
+     */
+    @Test
+    public void test1() throws Exception {
+        Container container = new SimpleContainer(true);
+        AtomicInteger count = new AtomicInteger();
+
+        container.registerObject("a", new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return A.class;
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                count.incrementAndGet();
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                return new A();
+            }
+        });
+
+        container.registerObject("c", new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return C.class;
+            }
+
+            @Override
+            public Dependency[] getInstanceDependencies() {
+                return new Dependency[]{Dependency.id("a")};
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                return new C((A) params[0]);
+            }
+        });
+
+        int n = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(n);
+        CountDownLatch latch = new CountDownLatch(1);
+        List<Future<C>> futures = new ArrayList<>();
+        for (int i = 0; i < n; ++i) {
+            futures.add(executor.submit(() -> {
+                latch.await();
+                return container.getObject(C.class);
+            }));
+        }
+        latch.countDown();
+
+        C c = container.getObject("c");
+        for (Future<C> f : futures) {
+            assertSame(c, f.get());
+        }
+        assertSame(c.a, container.getObject("a"));
+        assertEquals(1, count.get());
+        executor.shutdown();
+    }
+
+    /**
+     * 并发模式下的循环依赖（字段注入）
+     */
+    @Test
+    public void test2() {
+        Container container = new SimpleContainer(true);
+
+        container.registerObject("a", new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return A.class;
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                return new A();
+            }
+
+            @Override
+            public void doInit(Object obj) {
+                ((A) obj).b = container.getObject("b");
+            }
+        });
+
+        container.registerObject("b", new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return B.class;
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                return new B();
+            }
+
+            @Override
+            public void doInit(Object obj) {
+                ((B) obj).a = container.getObject("a");
+            }
+        });
+
+        A a = container.getObject("a");
+        B b = container.getObject("b");
+        assertSame(b, a.b);
+        assertSame(a, b.a);
+    }
+
+    /**
+     * 对象实例为null
+     */
+    @Test
+    public void test3() {
+        Container container = new SimpleContainer(true);
+
+        container.registerObject("a", new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return A.class;
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                return null;
+            }
+        });
+
+        assertNull(container.getObject("a"));
+        assertNull(container.getObject(A.class));
+    }
+}
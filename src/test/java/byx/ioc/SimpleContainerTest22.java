@@ -0,0 +1,95 @@
+package byx.ioc;
+
+import byx.ioc.core.Container;
+import byx.ioc.core.ObjectDefinition;
+import byx.ioc.core.SimpleContainer;
+import byx.ioc.exception.MultiTypeMatchException;
+import byx.ioc.exception.TypeNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static byx.ioc.ObjectDefinitions.definition;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 根据父类和接口类型获取对象
+ */
+public class SimpleContainerTest22 {
+    private interface I1 {
+    }
+
+    private interface I2 extends I1 {
+    }
+
+    private static class A implements I2 {
+    }
+
+    private static class B extends A {
+    }
+
+    private static class C implements I1 {
+    }
+
+    private static ObjectDefinition constant(Class<?> type, Object obj) {
+        return definition(type, params -> obj);
+    }
+
+    @Test
+    public void test1() {
+        Container container = new SimpleContainer();
+        A a = new A();
+        B b = new B();
+        C c = new C();
+        container.registerObject("a", constant(A.class, a));
+        container.registerObject("b", constant(B.class, b));
+        container.registerObject("c", constant(C.class, c));
+
+        assertSame(b, container.getObject(B.class));
+        assertSame(c, container.getObject(C.class));
+        assertThrows(MultiTypeMatchException.class, () -> container.getObject(A.class));
+        assertThrows(MultiTypeMatchException.class, () -> container.getObject(I2.class));
+        assertThrows(TypeNotFoundException.class, () -> container.getObject(String.class));
+
+        assertEquals(Set.of(a, b), container.getObjects(I2.class));
+        assertEquals(Set.of(a, b, c), container.getObjects(I1.class));
+        assertEquals(Set.of(a, b, c), container.getObjects(Object.class));
+        assertEquals(Set.of(a, b, c), container.getObjects(I1.class));
+        assertTrue(container.getObjects(String.class).isEmpty());
+    }
+
+    /**
+     * 数组类型
+     */
+    @Test
+    public void test2() {
+        Container container = new SimpleContainer();
+        String[] arr = new String[]{"hello"};
+        container.registerObject("arr", constant(String[].class, arr));
+
+        assertSame(arr, container.getObject(String[].class));
+        assertSame(arr, container.getObject(Object[].class));
+        assertSame(arr, container.getObject(Serializable.class));
+        assertThrows(TypeNotFoundException.class, () -> container.getObject(Integer[].class));
+    }
+
+    /**
+     * 对象定义的类型为接口
+     */
+    @Test
+    public void test3() {
+        Container container = new SimpleContainer();
+        List<String> list = List.of("hello");
+        Runnable runnable = () -> {};
+        container.registerObject("list", constant(List.class, list));
+        container.registerObject("runnable", constant(Runnable.class, runnable));
+
+        assertSame(list, container.getObject(Collection.class));
+        assertSame(runnable, container.getObject(Runnable.class));
+        assertEquals(Set.of(list, runnable), container.getObjects(Object.class));
+        assertThrows(MultiTypeMatchException.class, () -> container.getObject(Object.class));
+    }
+}
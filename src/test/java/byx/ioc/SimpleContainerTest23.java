@@ -0,0 +1,57 @@
+package byx.ioc;
+
+import byx.ioc.core.Container;
+import byx.ioc.core.Dependency;
+import byx.ioc.core.ObjectDefinition;
+import byx.ioc.core.SimpleContainer;
+import byx.ioc.exception.CircularDependencyException;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static byx.ioc.ObjectDefinitions.definition;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 循环依赖检测只报告构成环路的对象
+ */
+public class SimpleContainerTest23 {
+    private static ObjectDefinition node(Dependency... dependencies) {
+        return definition(Object.class, params -> new Object(), dependencies);
+    }
+
+    /**
+     * a -> b -> a，c -> a，d -> d，e -> c
+     */
+    @Test
+    public void test1() {
+        Container container = new SimpleContainer();
+        container.registerObject("a", node(Dependency.id("b")));
+        container.registerObject("b", node(Dependency.id("a")));
+        container.registerObject("c", node(Dependency.id("a")));
+        container.registerObject("d", node(Dependency.id("d")));
+        container.registerObject("e", node(Dependency.id("c")));
+
+        CircularDependencyException e = assertThrows(CircularDependencyException.class, () -> container.getObject("e"));
+        assertEquals(Set.of("a", "b", "d"), new HashSet<>(e.getIds()));
+        assertEquals(3, e.getIds().size());
+    }
+
+    /**
+     * 很长的依赖链末端存在环路
+     */
+    @Test
+    public void test2() {
+        Container container = new SimpleContainer();
+        int n = 100000;
+        for (int i = 0; i < n; ++i) {
+            container.registerObject("x" + i, node(Dependency.id("x" + (i + 1))));
+        }
+        container.registerObject("x" + n, node(Dependency.id("y")));
+        container.registerObject("y", node(Dependency.id("x" + n)));
+
+        CircularDependencyException e = assertThrows(CircularDependencyException.class, () -> container.getObject("x0"));
+        assertEquals(Set.of("x" + n, "y"), new HashSet<>(e.getIds()));
+    }
+}
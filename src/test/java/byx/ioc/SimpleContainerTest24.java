@@ -0,0 +1,83 @@
+package byx.ioc;
+
+import byx.ioc.core.Dependency;
+import byx.ioc.core.ObjectDefinition;
+import byx.ioc.core.SimpleContainer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static byx.ioc.ObjectDefinitions.definition;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 提前创建所有对象
+ */
+public class SimpleContainerTest24 {
+    private static ObjectDefinition logged(List<String> log, Runnable action, Dependency... dependencies) {
+        return definition(Object.class, params -> {
+            action.run();
+            Object obj = new Object();
+            log.add(obj.toString());
+            return obj;
+        }, dependencies);
+    }
+
+    /**
+     * 同一层的对象并发创建
+     */
+    @Test
+    public void test1() {
+        SimpleContainer container = new SimpleContainer(true);
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        CyclicBarrier barrier = new CyclicBarrier(4);
+        Runnable await = () -> {
+            try {
+                barrier.await(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        };
+
+        container.registerObject("a", logged(log, await));
+        container.registerObject("b", logged(log, await));
+        container.registerObject("c", logged(log, await));
+        container.registerObject("d", logged(log, await));
+        container.registerObject("e", logged(log, () -> {},
+                Dependency.id("a"), Dependency.id("b"), Dependency.id("c"), Dependency.id("d")));
+        container.registerObject("f", logged(log, () -> {}, Dependency.id("e")));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        container.preInstantiate(pool);
+        pool.shutdown();
+
+        assertEquals(6, log.size());
+        assertEquals(container.getObject("e").toString(), log.get(4));
+        assertEquals(container.getObject("f").toString(), log.get(5));
+    }
+
+    /**
+     * 非并发模式下按依赖顺序依次创建
+     */
+    @Test
+    public void test2() {
+        SimpleContainer container = new SimpleContainer();
+        List<String> log = new ArrayList<>();
+
+        container.registerObject("a", logged(log, () -> {}, Dependency.id("b")));
+        container.registerObject("b", logged(log, () -> {}, Dependency.id("c")));
+        container.registerObject("c", logged(log, () -> {}));
+
+        container.preInstantiate();
+
+        assertEquals(3, log.size());
+        assertEquals(container.getObject("c").toString(), log.get(0));
+        assertEquals(container.getObject("b").toString(), log.get(1));
+        assertEquals(container.getObject("a").toString(), log.get(2));
+    }
+}
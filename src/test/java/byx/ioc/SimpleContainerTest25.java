@@ -0,0 +1,61 @@
+package byx.ioc;
+
+import byx.ioc.core.Container;
+import byx.ioc.core.Dependency;
+import byx.ioc.core.ObjectDefinition;
+import byx.ioc.core.SimpleContainer;
+import org.junit.jupiter.api.Test;
+
+import static byx.ioc.ObjectDefinitions.definition;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 很长的构造函数依赖链
+ */
+public class SimpleContainerTest25 {
+    private static class Node {
+        private final Node next;
+
+        private Node(Node next) {
+            this.next = next;
+        }
+    }
+
+    private static ObjectDefinition node(Dependency... dependencies) {
+        return definition(Node.class, params -> new Node(params.length == 0 ? null : (Node) params[0]), dependencies);
+    }
+
+    private static void check(Container container, int n) {
+        Node node = container.getObject("n0");
+        for (int i = 0; i < n; ++i) {
+            assertSame(container.getObject("n" + i), node);
+            node = node.next;
+        }
+        assertNull(node);
+    }
+
+    @Test
+    public void test1() {
+        Container container = new SimpleContainer();
+        int n = 100000;
+        for (int i = 0; i < n - 1; ++i) {
+            container.registerObject("n" + i, node(Dependency.id("n" + (i + 1))));
+        }
+        container.registerObject("n" + (n - 1), node());
+        check(container, n);
+    }
+
+    /**
+     * 并发模式
+     */
+    @Test
+    public void test2() {
+        Container container = new SimpleContainer(true);
+        int n = 100000;
+        for (int i = 0; i < n - 1; ++i) {
+            container.registerObject("n" + i, node(Dependency.id("n" + (i + 1))));
+        }
+        container.registerObject("n" + (n - 1), node());
+        check(container, n);
+    }
+}
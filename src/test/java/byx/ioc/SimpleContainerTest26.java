@@ -0,0 +1,54 @@
+package byx.ioc;
+
+import byx.ioc.core.Container;
+import byx.ioc.core.ObjectDefinition;
+import byx.ioc.core.ObjectHandle;
+import byx.ioc.core.SimpleContainer;
+import byx.ioc.exception.IdNotFoundException;
+import byx.ioc.exception.MultiTypeMatchException;
+import byx.ioc.exception.TypeNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import static byx.ioc.ObjectDefinitions.definition;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 对象句柄
+ */
+public class SimpleContainerTest26 {
+    private static int count = 0;
+
+    private static ObjectDefinition counted(Class<?> type, Object obj) {
+        return definition(type, params -> {
+            count++;
+            return obj;
+        });
+    }
+
+    @Test
+    public void test1() {
+        Container container = new SimpleContainer();
+        container.registerObject("s", counted(String.class, "hello"));
+        container.registerObject("i", counted(Integer.class, 123));
+        container.registerObject("d1", counted(Double.class, 3.14));
+        container.registerObject("d2", counted(Double.class, 6.28));
+
+        count = 0;
+        ObjectHandle<String> h1 = container.handle("s", String.class);
+        ObjectHandle<CharSequence> h2 = container.handle(CharSequence.class);
+        ObjectHandle<Integer> h3 = container.handle("i", Integer.class);
+        assertEquals(0, count);
+
+        assertEquals("hello", h1.get());
+        assertSame(h1.get(), h2.get());
+        assertSame(container.getObject("s"), h1.get());
+        assertEquals(123, h3.get());
+        assertEquals(2, count);
+        assertEquals("s", h2.getId());
+
+        assertThrows(IdNotFoundException.class, () -> container.handle("x", String.class));
+        assertThrows(TypeNotFoundException.class, () -> container.handle("s", Integer.class));
+        assertThrows(TypeNotFoundException.class, () -> container.handle(Boolean.class));
+        assertThrows(MultiTypeMatchException.class, () -> container.handle(Double.class));
+    }
+}
@@ -0,0 +1,126 @@
+package byx.ioc;
+
+import byx.ioc.core.ConstructorObjectDefinition;
+import byx.ioc.core.Container;
+import byx.ioc.core.Dependency;
+import byx.ioc.core.ObjectDefinition;
+import byx.ioc.core.SimpleContainer;
+import byx.ioc.exception.ConstructorNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 通过构造函数创建对象
+ */
+public class SimpleContainerTest27 {
+    private static class A {
+        private final String s;
+        private final int i;
+
+        private A(String s, int i) {
+            this.s = s;
+            this.i = i;
+        }
+    }
+
+    private static class B {
+        private final A a;
+
+        private B() {
+            this.a = null;
+        }
+
+        private B(A a) {
+            this.a = a;
+        }
+    }
+
+    private static class C {
+        private final int sum;
+
+        private C(int a, int b, int c, int d, int e, int f, int g, int h) {
+            this.sum = a + b + c + d + e + f + g + h;
+        }
+    }
+
+    private static class D {
+        private D(String s) {
+        }
+
+        private D(Integer i) {
+        }
+    }
+
+    private static class E {
+        private E() {
+            throw new IllegalStateException("error");
+        }
+    }
+
+    private static ObjectDefinition value(Class<?> type, Object obj) {
+        return new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return type;
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                return obj;
+            }
+        };
+    }
+
+    @Test
+    public void test1() {
+        Container container = new SimpleContainer();
+        container.registerObject("s", value(String.class, "hello"));
+        container.registerObject("i", value(Integer.class, 123));
+        container.registerObject("a", new ConstructorObjectDefinition(A.class, Dependency.id("s"), Dependency.type(Integer.class)));
+        container.registerObject("b1", new ConstructorObjectDefinition(B.class, Dependency.type(A.class)));
+        container.registerObject("b2", new ConstructorObjectDefinition(B.class));
+        container.registerObject("sb", new ConstructorObjectDefinition(StringBuilder.class, new Class<?>[]{String.class}, Dependency.id("s")));
+
+        A a = container.getObject("a");
+        assertEquals("hello", a.s);
+        assertEquals(123, a.i);
+        B b1 = container.getObject("b1");
+        assertSame(a, b1.a);
+        B b2 = container.getObject("b2");
+        assertNull(b2.a);
+        assertEquals("hello", container.getObject("sb").toString());
+    }
+
+    /**
+     * 参数个数较多的构造函数
+     */
+    @Test
+    public void test2() {
+        Container container = new SimpleContainer();
+        Dependency[] dependencies = new Dependency[8];
+        for (int i = 0; i < 8; ++i) {
+            container.registerObject("p" + i, value(Integer.class, i));
+            dependencies[i] = Dependency.id("p" + i);
+        }
+        container.registerObject("c", new ConstructorObjectDefinition(C.class, dependencies));
+
+        C c = container.getObject("c");
+        assertEquals(28, c.sum);
+    }
+
+    /**
+     * 异常
+     */
+    @Test
+    public void test3() {
+        assertThrows(ConstructorNotFoundException.class, () -> new ConstructorObjectDefinition(A.class, Dependency.id("x")));
+        assertThrows(ConstructorNotFoundException.class, () -> new ConstructorObjectDefinition(D.class, Dependency.id("x")));
+        assertThrows(ConstructorNotFoundException.class, () -> new ConstructorObjectDefinition(B.class, new Class<?>[]{String.class}, Dependency.id("x")));
+        assertThrows(ConstructorNotFoundException.class, () -> new ConstructorObjectDefinition(B.class, new Class<?>[]{A.class}));
+
+        Container container = new SimpleContainer();
+        container.registerObject("e", new ConstructorObjectDefinition(E.class));
+        assertThrows(IllegalStateException.class, () -> container.getObject("e"));
+    }
+}
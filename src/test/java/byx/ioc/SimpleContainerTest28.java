@@ -0,0 +1,202 @@
+package byx.ioc;
+
+import byx.ioc.core.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 原型作用域
+ */
+public class SimpleContainerTest28 {
+    private static String s = "";
+
+    private static class A {
+        B b;
+    }
+
+    private static class B {
+        private final C c;
+
+        private B(C c) {
+            this.c = c;
+        }
+    }
+
+    private static class C {
+    }
+
+    @Test
+    public void test1() {
+        Container container = new SimpleContainer();
+
+        container.registerObject("a", new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return A.class;
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                return new A();
+            }
+
+            @Override
+            public void doInit(Object obj) {
+                ((A) obj).b = container.getObject("b");
+            }
+        });
+
+        container.registerObject("b", new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return B.class;
+            }
+
+            @Override
+            public Scope getScope() {
+                return Scope.prototype();
+            }
+
+            @Override
+            public Dependency[] getInstanceDependencies() {
+                return new Dependency[]{Dependency.type(C.class)};
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                s += "c";
+                return new B((C) params[0]);
+            }
+
+            @Override
+            public void doInit(Object obj) {
+                s += "i";
+            }
+
+            @Override
+            public Object doWrap(Object obj) {
+                s += "w";
+                return obj;
+            }
+        });
+
+        container.registerObject("c", new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return C.class;
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                return new C();
+            }
+        });
+
+        s = "";
+        B b1 = container.getObject("b");
+        B b2 = container.getObject(B.class);
+        assertNotSame(b1, b2);
+        assertSame(b1.c, b2.c);
+        assertSame(container.getObject("c"), b1.c);
+        assertEquals("ciwciw", s);
+
+        A a = container.getObject("a");
+        assertSame(a, container.getObject("a"));
+        assertNotSame(b1, a.b);
+        assertNotSame(b2, a.b);
+        assertSame(b1.c, a.b.c);
+
+        ObjectHandle<B> h = container.handle("b", B.class);
+        assertNotSame(h.get(), h.get());
+
+        Set<B> bs = container.getObjects(B.class);
+        assertEquals(1, bs.size());
+        assertNotSame(b1, bs.iterator().next());
+    }
+
+    /**
+     * 单例对象依赖原型对象
+     */
+    @Test
+    public void test2() {
+        SimpleContainer container = new SimpleContainer();
+
+        container.registerObject("b1", new ConstructorObjectDefinition(B.class, Dependency.id("c")));
+        container.registerObject("b2", new ConstructorObjectDefinition(B.class, Dependency.id("c")));
+        container.registerObject("c", new ConstructorObjectDefinition(C.class) {
+            @Override
+            public Scope getScope() {
+                return Scope.prototype();
+            }
+        });
+
+        container.preInstantiate();
+        B b1 = container.getObject("b1");
+        B b2 = container.getObject("b2");
+        assertNotSame(b1.c, b2.c);
+        assertSame(b1, container.getObject("b1"));
+    }
+
+    private static class Node {
+        private final Node next;
+
+        private Node(Node next) {
+            this.next = next;
+        }
+    }
+
+    private static ObjectDefinition node(Scope scope, Dependency... dependencies) {
+        return new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return Node.class;
+            }
+
+            @Override
+            public Scope getScope() {
+                return scope;
+            }
+
+            @Override
+            public Dependency[] getInstanceDependencies() {
+                return dependencies;
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                return new Node(params.length == 0 ? null : (Node) params[0]);
+            }
+        };
+    }
+
+    /**
+     * 很长的原型对象依赖链，以及单例对象和原型对象交替的依赖链
+     */
+    @Test
+    public void test3() {
+        int n = 20000;
+        for (boolean concurrent : new boolean[]{false, true}) {
+            for (boolean mixed : new boolean[]{false, true}) {
+                Container container = new SimpleContainer(concurrent);
+                for (int i = 0; i < n; ++i) {
+                    Scope scope = mixed && i % 2 == 1 ? Scope.singleton() : Scope.prototype();
+                    Dependency[] dependencies = i < n - 1 ? new Dependency[]{Dependency.id("n" + (i + 1))} : new Dependency[0];
+                    container.registerObject("n" + i, node(scope, dependencies));
+                }
+
+                Node node = container.getObject("n0");
+                assertNotSame(node, container.getObject("n0"));
+                for (int i = 0; i < n; ++i) {
+                    if (mixed && i % 2 == 1) {
+                        assertSame(container.getObject("n" + i), node);
+                    }
+                    node = node.next;
+                }
+                assertNull(node);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package byx.ioc;
+
+import byx.ioc.core.*;
+import byx.ioc.exception.NotPooledException;
+import byx.ioc.exception.PoolExhaustedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 对象池作用域
+ */
+public class SimpleContainerTest29 {
+    private static class Parser {
+        boolean initialized = false;
+    }
+
+    private static Container createContainer(AtomicInteger count) {
+        Container container = new SimpleContainer(true);
+        container.registerObject("parser", new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return Parser.class;
+            }
+
+            @Override
+            public Scope getScope() {
+                return Scope.pooled(2);
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                count.incrementAndGet();
+                return new Parser();
+            }
+
+            @Override
+            public void doInit(Object obj) {
+                ((Parser) obj).initialized = true;
+            }
+        });
+        container.registerObject("s", new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return String.class;
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                return "hello";
+            }
+        });
+        return container;
+    }
+
+    @Test
+    public void test1() {
+        AtomicInteger count = new AtomicInteger();
+        Container container = createContainer(count);
+
+        Parser p1, p2;
+        try (ObjectLease<Parser> l1 = container.lease("parser");
+             ObjectLease<Parser> l2 = container.lease("parser")) {
+            p1 = l1.get();
+            p2 = l2.get();
+            assertNotSame(p1, p2);
+            assertTrue(p1.initialized);
+
+            PoolMetrics metrics = container.getPoolMetrics("parser");
+            assertEquals(2, metrics.getMaxSize());
+            assertEquals(2, metrics.getBorrowedCount());
+            assertEquals(0, metrics.getIdleCount());
+            assertEquals(1.0, metrics.getUtilization());
+
+            assertThrows(PoolExhaustedException.class, () -> container.lease("parser", 10, TimeUnit.MILLISECONDS));
+        }
+
+        try (ObjectLease<Parser> l = container.lease("parser")) {
+            assertTrue(l.get() == p1 || l.get() == p2);
+        }
+
+        PoolMetrics metrics = container.getPoolMetrics("parser");
+        assertEquals(2, metrics.getCreatedCount());
+        assertEquals(2, metrics.getIdleCount());
+        assertEquals(0, metrics.getBorrowedCount());
+        assertEquals(3, metrics.getTotalBorrowCount());
+        assertEquals(2, count.get());
+
+        Parser p3 = container.getObject("parser");
+        assertNotSame(p1, p3);
+        assertNotSame(p2, p3);
+
+        assertThrows(NotPooledException.class, () -> container.lease("s"));
+        assertThrows(NotPooledException.class, () -> container.getPoolMetrics("s"));
+    }
+
+    /**
+     * 多个线程同时借出对象
+     */
+    @Test
+    public void test2() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        Container container = createContainer(count);
+        AtomicInteger inUse = new AtomicInteger();
+        AtomicInteger maxInUse = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        Callable<Void> task = () -> {
+            for (int i = 0; i < 100; ++i) {
+                try (ObjectLease<Parser> lease = container.lease("parser")) {
+                    assertNotNull(lease.get());
+                    maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+                    inUse.decrementAndGet();
+                }
+            }
+            return null;
+        };
+        for (Future<Void> f : executor.invokeAll(Collections.nCopies(8, task))) {
+            f.get();
+        }
+        executor.shutdown();
+
+        assertTrue(maxInUse.get() <= 2);
+        assertTrue(count.get() <= 2);
+        assertEquals(800, container.getPoolMetrics("parser").getTotalBorrowCount());
+    }
+}
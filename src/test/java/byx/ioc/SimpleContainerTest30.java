@@ -0,0 +1,87 @@
+package byx.ioc;
+
+import byx.ioc.core.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 线程作用域
+ */
+public class SimpleContainerTest30 {
+    private static class Formatter {
+        boolean initialized = false;
+    }
+
+    private static class Service {
+        private final Formatter formatter;
+
+        private Service(Formatter formatter) {
+            this.formatter = formatter;
+        }
+    }
+
+    @Test
+    public void test1() throws Exception {
+        Container container = new SimpleContainer(true);
+        AtomicInteger count = new AtomicInteger();
+
+        container.registerObject("formatter", new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return Formatter.class;
+            }
+
+            @Override
+            public Scope getScope() {
+                return Scope.thread();
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                count.incrementAndGet();
+                return new Formatter();
+            }
+
+            @Override
+            public void doInit(Object obj) {
+                ((Formatter) obj).initialized = true;
+            }
+        });
+        container.registerObject("service", new ConstructorObjectDefinition(Service.class, Dependency.type(Formatter.class)) {
+            @Override
+            public Scope getScope() {
+                return Scope.prototype();
+            }
+        });
+
+        Formatter f1 = container.getObject("formatter");
+        assertTrue(f1.initialized);
+        assertSame(f1, container.getObject(Formatter.class));
+        assertSame(f1, container.handle("formatter", Formatter.class).get());
+        Service service = container.getObject("service");
+        assertSame(f1, service.formatter);
+        assertEquals(1, count.get());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Formatter f2 = executor.submit(() -> container.<Formatter>getObject("formatter")).get();
+        Formatter f3 = executor.submit(() -> container.<Formatter>getObject("formatter")).get();
+        assertNotSame(f1, f2);
+        assertSame(f2, f3);
+        assertEquals(2, count.get());
+
+        executor.submit(container::clearThreadObjects).get();
+        Formatter f4 = executor.submit(() -> container.<Formatter>getObject("formatter")).get();
+        assertNotSame(f2, f4);
+        assertSame(f1, container.getObject("formatter"));
+        executor.shutdown();
+
+        container.clearThreadObjects();
+        assertNotSame(f1, container.getObject("formatter"));
+        assertEquals(4, count.get());
+    }
+}
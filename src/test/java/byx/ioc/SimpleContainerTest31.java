@@ -0,0 +1,104 @@
+package byx.ioc;
+
+import byx.ioc.core.*;
+import byx.ioc.exception.CircularDependencyException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static byx.ioc.ObjectDefinitions.definition;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 通过容器模板创建容器
+ */
+public class SimpleContainerTest31 {
+    private static ObjectDefinition counted(AtomicInteger counter, Dependency... dependencies) {
+        return definition(Object.class, params -> {
+            counter.incrementAndGet();
+            return new Object[]{params};
+        }, dependencies);
+    }
+
+    /**
+     * 每个容器拥有自己的单例对象
+     */
+    @Test
+    public void test1() {
+        AtomicInteger counter = new AtomicInteger();
+        Container container = new SimpleContainer();
+        container.registerObject("a", counted(counter, Dependency.id("b")));
+        container.registerObject("b", counted(counter));
+
+        ContainerTemplate template = ContainerTemplate.compile(container);
+        Container c1 = template.newContainer();
+        Container c2 = template.newContainer(true);
+
+        Object a1 = c1.getObject("a");
+        assertSame(a1, c1.getObject("a"));
+        assertNotSame(a1, c2.getObject("a"));
+        assertEquals(4, counter.get());
+        assertEquals(template.getObjectIds(), c1.getObjectIds());
+
+        // 由模板创建的容器已经冻结
+        c1.registerObject("c", counted(counter));
+        assertFalse(c1.getObjectIds().contains("c"));
+    }
+
+    /**
+     * 创建模板时检测循环依赖
+     */
+    @Test
+    public void test2() {
+        AtomicInteger counter = new AtomicInteger();
+        Container container = new SimpleContainer();
+        container.registerObject("a", counted(counter, Dependency.id("b")));
+        container.registerObject("b", counted(counter, Dependency.id("a")));
+
+        assertThrows(CircularDependencyException.class, () -> ContainerTemplate.compile(container));
+    }
+
+    /**
+     * 通过模板创建容器时不再重新编译对象定义
+     */
+    @Test
+    public void test3() {
+        AtomicInteger counter = new AtomicInteger();
+        AtomicInteger dependencyQueries = new AtomicInteger();
+        Container container = new SimpleContainer();
+        for (int i = 0; i <= 100; ++i) {
+            Dependency[] dependencies = i < 100 ? new Dependency[]{Dependency.id("x" + (i + 1))} : new Dependency[0];
+            container.registerObject("x" + i, new ObjectDefinition() {
+                @Override
+                public Class<?> getType() {
+                    return Object.class;
+                }
+
+                @Override
+                public Dependency[] getInstanceDependencies() {
+                    dependencyQueries.incrementAndGet();
+                    return dependencies;
+                }
+
+                @Override
+                public Object getInstance(Object[] params) {
+                    counter.incrementAndGet();
+                    return params;
+                }
+            });
+        }
+        ContainerTemplate template = ContainerTemplate.compile(container);
+
+        // 编译之后不再查询对象定义的依赖项
+        int queries = dependencyQueries.get();
+        for (int i = 0; i < 5000; ++i) {
+            Container c = template.newContainer(i % 2 == 0);
+            if (i % 1000 == 0) {
+                c.getObject("x0");
+                assertEquals(template.getObjectIds(), c.getObjectIds());
+            }
+        }
+        assertEquals(queries, dependencyQueries.get());
+        assertEquals(5 * 101, counter.get());
+    }
+}
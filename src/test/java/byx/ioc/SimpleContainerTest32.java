@@ -0,0 +1,244 @@
+package byx.ioc;
+
+import byx.ioc.core.Container;
+import byx.ioc.core.Dependency;
+import byx.ioc.core.ObjectDefinition;
+import byx.ioc.core.SimpleContainer;
+import byx.ioc.exception.IdNotFoundException;
+import byx.ioc.exception.NotPooledException;
+import byx.ioc.exception.TypeNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static byx.ioc.ObjectDefinitions.definition;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 父子容器
+ */
+public class SimpleContainerTest32 {
+    private static class A {
+    }
+
+    private static class B {
+        private final String name;
+
+        private B(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * 只实现基本方法的容器
+     */
+    private static class MapContainer implements Container {
+        private final Map<String, ObjectDefinition> definitions = new HashMap<>();
+        private final Map<String, Object> objects = new HashMap<>();
+
+        @Override
+        public void registerObject(String id, ObjectDefinition definition) {
+            definitions.put(id, definition);
+        }
+
+        @Override
+        public ObjectDefinition getObjectDefinition(String id) {
+            return definitions.get(id);
+        }
+
+        @Override
+        public void setObjectDefinition(String id, ObjectDefinition definition) {
+            definitions.put(id, definition);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T getObject(String id) {
+            return (T) objects.computeIfAbsent(id, k -> definitions.get(k).getInstance(new Object[0]));
+        }
+
+        @Override
+        public <T> T getObject(Class<T> type) {
+            return handle(type).get();
+        }
+
+        @Override
+        public <T> T getObject(String id, Class<T> type) {
+            return type.cast(getObject(id));
+        }
+
+        @Override
+        public <T> Set<T> getObjects(Class<T> type) {
+            Set<T> result = new HashSet<>();
+            for (String id : definitions.keySet()) {
+                if (type.isAssignableFrom(definitions.get(id).getType())) {
+                    result.add(getObject(id));
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public Set<String> getObjectIds() {
+            return definitions.keySet();
+        }
+
+        @Override
+        public Set<Class<?>> getObjectTypes() {
+            Set<Class<?>> result = new HashSet<>();
+            definitions.values().forEach(d -> result.add(d.getType()));
+            return result;
+        }
+    }
+
+    private static Container parent() {
+        Container parent = new SimpleContainer();
+        parent.registerObject("a", definition(A.class, params -> new A()));
+        parent.registerObject("b", definition(B.class, params -> new B("parent")));
+        return parent;
+    }
+
+    @Test
+    public void test1() {
+        Container parent = parent();
+        Container child = new SimpleContainer(parent);
+        child.registerObject("b", definition(B.class, params -> new B("child")));
+        child.registerObject("c", definition(Object.class, params -> List.of(params),
+                Dependency.type(A.class), Dependency.id("b")));
+
+        // 父容器中的单例对象被共享
+        A a = parent.getObject("a");
+        assertSame(a, child.getObject("a"));
+        assertSame(a, child.getObject(A.class));
+
+        // 子容器中覆盖的对象
+        B b = child.getObject("b");
+        assertEquals("child", b.name);
+        assertEquals("child", child.getObject(B.class).name);
+        assertEquals("parent", parent.getObject(B.class).name);
+
+        // 本地对象依赖父容器中的对象
+        assertEquals(List.of(a, b), child.getObject("c"));
+        assertThrows(IdNotFoundException.class, () -> parent.getObject("c"));
+
+        assertEquals(Set.of("a", "b", "c"), child.getObjectIds());
+        assertEquals(Set.of(b), child.getObjects(B.class));
+        assertEquals(Set.of(a, b, child.getObject("c")), child.getObjects(Object.class));
+    }
+
+    /**
+     * 多个子容器互不影响
+     */
+    @Test
+    public void test2() {
+        Container parent = parent();
+        Container child1 = new SimpleContainer(parent);
+        Container child2 = new SimpleContainer(parent);
+        child1.registerObject("c", definition(String.class, params -> "c1"));
+        child2.setObjectDefinition("b", definition(B.class, params -> new B("child2")));
+        assertThrows(IdNotFoundException.class, () -> child2.setObjectDefinition("x", definition(String.class, params -> "x")));
+
+        assertEquals("c1", child1.getObject("c"));
+        assertThrows(IdNotFoundException.class, () -> child2.getObject("c"));
+        assertEquals("parent", child1.getObject(B.class).name);
+        assertEquals("child2", child2.getObject(B.class).name);
+        assertSame(child1.getObject("a"), child2.getObject("a"));
+    }
+
+    /**
+     * 依赖项在父容器中也不存在
+     */
+    @Test
+    public void test3() {
+        Container child = new SimpleContainer(parent());
+        child.registerObject("c", definition(String.class, params -> "c", Dependency.id("d")));
+        assertThrows(IdNotFoundException.class, () -> child.getObject("c"));
+    }
+
+    /**
+     * 冻结子容器和按类型获取对象时不遍历父容器中的对象定义，而是使用父容器的类型索引
+     */
+    @Test
+    public void test4() {
+        AtomicInteger lookups = new AtomicInteger();
+        Container parent = new SimpleContainer() {
+            @Override
+            public ObjectDefinition getObjectDefinition(String id) {
+                lookups.incrementAndGet();
+                return super.getObjectDefinition(id);
+            }
+
+            @Override
+            public Set<String> getObjectIds() {
+                lookups.incrementAndGet();
+                return super.getObjectIds();
+            }
+        };
+        parent.registerObject("a", definition(A.class, params -> new A()));
+        parent.registerObject("b", definition(B.class, params -> new B("parent")));
+        Container child = new SimpleContainer(parent);
+        child.registerObject("c", definition(String.class, params -> "c"));
+
+        assertEquals("c", child.getObject("c"));
+        A a = parent.getObject("a");
+        B b = parent.getObject("b");
+        for (int i = 0; i < 10; ++i) {
+            assertEquals(Set.of(b), child.getObjects(B.class));
+            assertEquals(Set.of(a), child.getObjects(A.class));
+            assertSame(a, child.getObject(A.class));
+        }
+        assertEquals(0, lookups.get());
+    }
+
+    /**
+     * 父容器只实现了Container的基本方法
+     */
+    @Test
+    public void test5() throws Exception {
+        Container parent = new MapContainer();
+        parent.registerObject("a", definition(A.class, params -> new A()));
+        Container child = new SimpleContainer(parent);
+        child.registerObject("b", definition(B.class, params -> new B("child"), Dependency.type(A.class)));
+
+        A a = parent.getObject("a");
+        assertSame(a, child.getObject(A.class));
+        assertSame(a, parent.handle(A.class).get());
+        assertEquals("a", parent.handle(A.class).getId());
+        assertSame(a, parent.getObjectAsync("a").get(10, TimeUnit.SECONDS));
+        assertEquals("child", child.<B>getObject("b").name);
+        assertThrows(NotPooledException.class, () -> parent.lease("a"));
+        assertThrows(NotPooledException.class, () -> parent.getPoolMetrics("a"));
+        parent.clearThreadObjects();
+    }
+
+    /**
+     * 按类型查找父容器时，被子容器覆盖的id不参与匹配
+     */
+    @Test
+    public void test6() {
+        for (Container parent : List.of(new SimpleContainer(), new MapContainer())) {
+            parent.registerObject("a", definition(A.class, params -> new A()));
+            Container child = new SimpleContainer(parent);
+            child.registerObject("a", definition(B.class, params -> new B("child")));
+
+            assertEquals(Set.of(), child.getObjects(A.class));
+            assertThrows(TypeNotFoundException.class, () -> child.getObject(A.class));
+            assertThrows(TypeNotFoundException.class, () -> child.handle(A.class));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> child.getObjectAsync(A.class).get(10, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof TypeNotFoundException);
+
+            Container dependent = new SimpleContainer(parent);
+            dependent.registerObject("a", definition(B.class, params -> new B("child")));
+            dependent.registerObject("c", definition(String.class, params -> "c", Dependency.type(A.class)));
+            assertThrows(TypeNotFoundException.class, () -> dependent.getObject("c"));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package byx.ioc;
+
+import byx.ioc.core.Container;
+import byx.ioc.core.Dependency;
+import byx.ioc.core.ObjectDefinition;
+import byx.ioc.core.Scope;
+import byx.ioc.core.SimpleContainer;
+import byx.ioc.exception.IdNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+import static byx.ioc.ObjectDefinitions.definition;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 异步获取对象
+ */
+public class SimpleContainerTest33 {
+    private static ObjectDefinition listOf(Runnable action, Dependency... dependencies) {
+        return definition(List.class, params -> {
+            action.run();
+            return List.of(params);
+        }, dependencies);
+    }
+
+    /**
+     * 互不依赖的分支并发创建
+     */
+    @Test
+    public void test1() throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        Runnable await = () -> {
+            try {
+                barrier.await(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        };
+
+        Container container = new SimpleContainer(true);
+        container.registerObject("a", listOf(() -> {}, Dependency.id("b"), Dependency.id("c")));
+        container.registerObject("b", listOf(await, Dependency.id("d")));
+        container.registerObject("c", listOf(await, Dependency.id("d")));
+        container.registerObject("d", listOf(() -> {}));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CompletableFuture<List<?>> future = container.getObjectAsync("a", executor);
+            List<?> a = future.get(10, TimeUnit.SECONDS);
+            assertSame(a, container.getObject("a"));
+            assertEquals(List.of(container.getObject("b"), container.getObject("c")), a);
+            assertSame(container.getObject("d"), ((List<?>) a.get(0)).get(0));
+            assertSame(container.getObject("d"), ((List<?>) a.get(1)).get(0));
+
+            // 已经创建的对象直接返回
+            assertTrue(container.getObjectAsync("a", executor).isDone());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 非并发模式在executor中依次创建
+     */
+    @Test
+    public void test2() throws Exception {
+        Thread caller = Thread.currentThread();
+        Container container = new SimpleContainer();
+        container.registerObject("a", listOf(() -> assertNotSame(caller, Thread.currentThread()), Dependency.id("b")));
+        container.registerObject("b", listOf(() -> assertNotSame(caller, Thread.currentThread())));
+
+        List<?> a = container.<List<?>>getObjectAsync("a").get(10, TimeUnit.SECONDS);
+        assertSame(a, container.getObject("a"));
+    }
+
+    /**
+     * 获取对象失败
+     */
+    @Test
+    public void test3() {
+        Container container = new SimpleContainer(true);
+        container.registerObject("a", listOf(() -> {
+            throw new IllegalStateException();
+        }));
+
+        ExecutionException e1 = assertThrows(ExecutionException.class, () -> container.getObjectAsync("x").get());
+        assertTrue(e1.getCause() instanceof IdNotFoundException);
+        ExecutionException e2 = assertThrows(ExecutionException.class, () -> container.getObjectAsync("a").get());
+        assertTrue(e2.getCause() instanceof IllegalStateException);
+    }
+
+    /**
+     * 线程作用域的对象在调用线程中获取
+     */
+    @Test
+    public void test4() throws Exception {
+        for (boolean concurrent : new boolean[]{false, true}) {
+            Container container = new SimpleContainer(concurrent);
+            container.registerObject("a", new ObjectDefinition() {
+                @Override
+                public Class<?> getType() {
+                    return Thread.class;
+                }
+
+                @Override
+                public Scope getScope() {
+                    return Scope.thread();
+                }
+
+                @Override
+                public Object getInstance(Object[] params) {
+                    return Thread.currentThread();
+                }
+            });
+
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Thread a = container.<Thread>getObjectAsync("a", executor).get(10, TimeUnit.SECONDS);
+                assertSame(Thread.currentThread(), a);
+                assertSame(container.getObject("a"), a);
+                Thread other = executor.submit(() -> container.<Thread>getObject("a")).get(10, TimeUnit.SECONDS);
+                assertNotSame(a, other);
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+}
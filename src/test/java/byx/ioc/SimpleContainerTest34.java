@@ -0,0 +1,245 @@
+package byx.ioc;
+
+import byx.ioc.core.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 异步实例化和初始化的对象
+ */
+public class SimpleContainerTest34 {
+    /**
+     * 实例化时等待外部完成的对象
+     */
+    private static AsyncObjectDefinition pending(List<CompletableFuture<Object>> requests, Object obj) {
+        return new AsyncObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return obj.getClass();
+            }
+
+            @Override
+            public CompletionStage<Object> getInstanceAsync(Object[] params) {
+                CompletableFuture<Object> future = new CompletableFuture<>();
+                requests.add(future);
+                return future.thenApply(v -> obj);
+            }
+        };
+    }
+
+    /**
+     * 互不依赖的对象的I/O重叠进行，不占用executor中的线程
+     */
+    @Test
+    public void test1() throws Exception {
+        List<CompletableFuture<Object>> requests = Collections.synchronizedList(new ArrayList<>());
+        Container container = new SimpleContainer(true);
+        container.registerObject("a", pending(requests, "a"));
+        container.registerObject("b", pending(requests, 1));
+        container.registerObject("c", pending(requests, 2L));
+        container.registerObject("d", new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return List.class;
+            }
+
+            @Override
+            public Dependency[] getInstanceDependencies() {
+                return new Dependency[]{Dependency.id("a"), Dependency.id("b"), Dependency.id("c")};
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                return List.of(params);
+            }
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<List<?>> future = container.getObjectAsync("d", executor);
+
+            // 只有一个线程，但三个对象同时在等待I/O
+            long deadline = System.currentTimeMillis() + 10000;
+            while (requests.size() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(3, requests.size());
+            assertFalse(future.isDone());
+
+            requests.forEach(r -> r.complete(null));
+            assertEquals(List.of("a", 1, 2L), future.get(10, TimeUnit.SECONDS));
+            assertEquals("a", container.getObject("a"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 异步初始化过程中解决循环依赖
+     */
+    @Test
+    public void test2() throws Exception {
+        Container container = new SimpleContainer(true);
+        List<Object> a = new ArrayList<>();
+        List<Object> b = new ArrayList<>();
+        container.registerObject("a", new AsyncObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return List.class;
+            }
+
+            @Override
+            public CompletionStage<Object> getInstanceAsync(Object[] params) {
+                return CompletableFuture.supplyAsync(() -> a);
+            }
+
+            @Override
+            public CompletionStage<Void> doInitAsync(Object obj) {
+                a.add(container.getObject("b"));
+                return CompletableFuture.completedFuture(null);
+            }
+        });
+        container.registerObject("b", new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return ArrayList.class;
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                return b;
+            }
+
+            @Override
+            public void doInit(Object obj) {
+                b.add(container.getObject("a"));
+            }
+        });
+
+        assertSame(a, container.getObjectAsync("a").get(10, TimeUnit.SECONDS));
+        assertSame(b, a.get(0));
+        assertSame(a, b.get(0));
+    }
+
+    /**
+     * 同步获取时等待实例化和初始化完成
+     */
+    @Test
+    public void test3() {
+        List<String> log = new ArrayList<>();
+        Container container = new SimpleContainer();
+        container.registerObject("a", new AsyncObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return String.class;
+            }
+
+            @Override
+            public CompletionStage<Object> getInstanceAsync(Object[] params) {
+                return CompletableFuture.supplyAsync(() -> "hello");
+            }
+
+            @Override
+            public CompletionStage<Void> doInitAsync(Object obj) {
+                return CompletableFuture.runAsync(() -> log.add("init:" + obj));
+            }
+        });
+
+        assertEquals("hello", container.getObject("a"));
+        assertEquals(List.of("init:hello"), log);
+    }
+
+    /**
+     * 异步初始化在其他线程中继续执行时，获取的对象在初始化过程中需要该对象
+     */
+    @Test
+    public void test4() throws Exception {
+        Container container = new SimpleContainer(true);
+        List<Object> a = new ArrayList<>();
+        List<Object> b = new ArrayList<>();
+        List<Object> c = new ArrayList<>();
+        CountDownLatch initializing = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        container.registerObject("a", new AsyncObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return List.class;
+            }
+
+            @Override
+            public CompletionStage<Object> getInstanceAsync(Object[] params) {
+                return CompletableFuture.completedFuture(a);
+            }
+
+            @Override
+            public CompletionStage<Void> doInitAsync(Object obj) {
+                return CompletableFuture.runAsync(() -> {
+                    initializing.countDown();
+                    try {
+                        proceed.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }).thenRun(() -> {
+                    a.add(container.getObject("b"));
+                    a.add(container.getObject("c"));
+                });
+            }
+        });
+        container.registerObject("b", new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return ArrayList.class;
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                return b;
+            }
+
+            @Override
+            public void doInit(Object obj) {
+                b.add(container.getObject("a"));
+            }
+        });
+        container.registerObject("c", new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return LinkedList.class;
+            }
+
+            @Override
+            public Dependency[] getInstanceDependencies() {
+                return new Dependency[]{Dependency.id("a")};
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                c.add(params[0]);
+                return c;
+            }
+        });
+
+        CompletableFuture<Object> future = container.getObjectAsync("a");
+        assertTrue(initializing.await(10, TimeUnit.SECONDS));
+
+        // 其他线程直接获取时等待初始化完成
+        CompletableFuture<Object> other = CompletableFuture.supplyAsync(() -> container.getObject("a"));
+        proceed.countDown();
+
+        assertSame(a, future.get(10, TimeUnit.SECONDS));
+        assertSame(a, other.get(10, TimeUnit.SECONDS));
+        assertEquals(2, a.size());
+        assertSame(b, a.get(0));
+        assertSame(c, a.get(1));
+        assertSame(a, b.get(0));
+        assertSame(a, c.get(0));
+    }
+}
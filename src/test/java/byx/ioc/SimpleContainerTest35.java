@@ -0,0 +1,90 @@
+package byx.ioc;
+
+import byx.ioc.core.Container;
+import byx.ioc.core.Dependency;
+import byx.ioc.core.ObjectDefinition;
+import byx.ioc.core.SimpleContainer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 大量线程同时获取尚未创建的对象
+ * 运行环境支持虚拟线程时每个任务使用一个虚拟线程，否则使用线程池
+ */
+public class SimpleContainerTest35 {
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(64);
+        }
+    }
+
+    @Test
+    public void test() throws Exception {
+        int n = 200;
+        int tasks = 5000;
+        AtomicIntegerArray counts = new AtomicIntegerArray(n);
+        Container container = new SimpleContainer(true);
+        for (int i = 0; i < n; ++i) {
+            int index = i;
+            Dependency[] dependencies = i == 0 ? new Dependency[0] : new Dependency[]{Dependency.id("x" + (i / 2))};
+            container.registerObject("x" + i, new ObjectDefinition() {
+                @Override
+                public Class<?> getType() {
+                    return Object[].class;
+                }
+
+                @Override
+                public Dependency[] getInstanceDependencies() {
+                    return dependencies;
+                }
+
+                @Override
+                public Object getInstance(Object[] params) {
+                    counts.incrementAndGet(index);
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    return params;
+                }
+            });
+        }
+
+        ExecutorService executor = newExecutor();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < tasks; ++i) {
+                String id = "x" + (n - 1 - i % n);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return container.getObject(id);
+                }));
+            }
+            start.countDown();
+
+            for (int i = 0; i < tasks; ++i) {
+                String id = "x" + (n - 1 - i % n);
+                assertSame(container.getObject(id), futures.get(i).get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (int i = 0; i < n; ++i) {
+            assertEquals(1, counts.get(i));
+        }
+        for (int i = 1; i < n; ++i) {
+            assertSame(container.getObject("x" + (i / 2)), ((Object[]) container.getObject("x" + i))[0]);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package byx.ioc;
+
+import byx.ioc.core.Container;
+import byx.ioc.core.ObjectDefinition;
+import byx.ioc.core.SimpleContainer;
+import byx.ioc.exception.CircularDependencyException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 多个线程同时创建互相依赖的对象
+ */
+public class SimpleContainerTest36 {
+    private static class Node {
+        private Node next;
+    }
+
+    /**
+     * 构造环形依赖：第i个对象在初始化时获取第i+1个对象
+     * 所有对象在实例化时等待barrier，保证每个线程都先持有一个对象再去获取下一个对象
+     */
+    private static Container ring(int n, CyclicBarrier barrier, AtomicIntegerArray counts) {
+        Container container = new SimpleContainer(true);
+        for (int i = 0; i < n; ++i) {
+            int index = i;
+            container.registerObject("n" + i, new ObjectDefinition() {
+                @Override
+                public Class<?> getType() {
+                    return Node.class;
+                }
+
+                @Override
+                public Object getInstance(Object[] params) {
+                    counts.incrementAndGet(index);
+                    if (barrier != null) {
+                        try {
+                            barrier.await(10, TimeUnit.SECONDS);
+                        } catch (Exception e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                    return new Node();
+                }
+
+                @Override
+                public void doInit(Object obj) {
+                    ((Node) obj).next = container.getObject("n" + ((index + 1) % n));
+                }
+            });
+        }
+        return container;
+    }
+
+    private static void checkRing(Container container, int n, AtomicIntegerArray counts) {
+        for (int i = 0; i < n; ++i) {
+            Node node = container.getObject("n" + i);
+            assertSame(container.getObject("n" + ((i + 1) % n)), node.next);
+            assertEquals(1, counts.get(i));
+        }
+    }
+
+    /**
+     * 每个线程从环上不同的对象开始创建
+     */
+    @Test
+    public void test1() throws Exception {
+        for (int n : new int[]{2, 3, 8}) {
+            AtomicIntegerArray counts = new AtomicIntegerArray(n);
+            Container container = ring(n, new CyclicBarrier(n), counts);
+            ExecutorService executor = Executors.newFixedThreadPool(n);
+            try {
+                List<Future<Object>> futures = new ArrayList<>();
+                for (int i = 0; i < n; ++i) {
+                    String id = "n" + i;
+                    futures.add(executor.submit(() -> container.getObject(id)));
+                }
+                for (int i = 0; i < n; ++i) {
+                    assertSame(container.getObject("n" + i), futures.get(i).get(10, TimeUnit.SECONDS));
+                }
+            } finally {
+                executor.shutdown();
+            }
+            checkRing(container, n, counts);
+        }
+    }
+
+    /**
+     * 大量线程随机获取环上的对象
+     */
+    @Test
+    public void test2() throws Exception {
+        int n = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            for (int round = 0; round < 50; ++round) {
+                AtomicIntegerArray counts = new AtomicIntegerArray(n);
+                Container container = ring(n, null, counts);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Object>> futures = new ArrayList<>();
+                for (int i = 0; i < 200; ++i) {
+                    String id = "n" + ThreadLocalRandom.current().nextInt(n);
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        return container.getObject(id);
+                    }));
+                }
+                start.countDown();
+                for (Future<Object> future : futures) {
+                    assertNotNull(future.get(10, TimeUnit.SECONDS));
+                }
+                checkRing(container, n, counts);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 实例化过程中获取正在被其他线程创建的对象，无法通过早期引用解决
+     */
+    @Test
+    public void test3() throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        Container container = new SimpleContainer(true);
+        for (String[] pair : new String[][]{{"a", "b"}, {"b", "a"}}) {
+            container.registerObject(pair[0], new ObjectDefinition() {
+                @Override
+                public Class<?> getType() {
+                    return Object.class;
+                }
+
+                @Override
+                public Object getInstance(Object[] params) {
+                    try {
+                        barrier.await(10, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                    return container.getObject(pair[1]);
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> f1 = executor.submit(() -> container.getObject("a"));
+            Future<Object> f2 = executor.submit(() -> container.getObject("b"));
+            int failures = 0;
+            for (Future<Object> f : List.of(f1, f2)) {
+                try {
+                    f.get(10, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof CircularDependencyException);
+                    failures++;
+                }
+            }
+            assertEquals(2, failures);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package byx.ioc;
+
+import byx.ioc.core.*;
+import byx.ioc.exception.CircularDependencyException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 注入Provider
+ */
+public class SimpleContainerTest37 {
+    private static final AtomicInteger heavyCount = new AtomicInteger();
+
+    private static class A {
+        private final Provider<B> b;
+
+        private A(Provider<B> b) {
+            this.b = b;
+        }
+    }
+
+    private static class B {
+        private final A a;
+
+        private B(A a) {
+            this.a = a;
+        }
+    }
+
+    private static class Heavy {
+        private Heavy() {
+            heavyCount.incrementAndGet();
+        }
+    }
+
+    private static class C {
+        private final Provider<Heavy> heavy;
+
+        private C(Provider<Heavy> heavy) {
+            this.heavy = heavy;
+        }
+    }
+
+    /**
+     * 通过Provider打破构造函数之间的循环依赖
+     */
+    @Test
+    public void test1() {
+        Container container = new SimpleContainer();
+        container.registerObject("a", new ConstructorObjectDefinition(A.class, Dependency.provider("b")));
+        container.registerObject("b", new ConstructorObjectDefinition(B.class, Dependency.id("a")));
+
+        A a = container.getObject("a");
+        B b = container.getObject("b");
+        assertSame(b, a.b.get());
+        assertSame(a, b.a);
+    }
+
+    /**
+     * 目标对象在第一次调用get时才创建，之后返回同一个对象
+     */
+    @Test
+    public void test2() {
+        heavyCount.set(0);
+        Container container = new SimpleContainer();
+        container.registerObject("heavy", new ConstructorObjectDefinition(Heavy.class) {
+            @Override
+            public Scope getScope() {
+                return Scope.prototype();
+            }
+        });
+        container.registerObject("c", new ConstructorObjectDefinition(C.class, Dependency.provider(Heavy.class)));
+
+        C c = container.getObject("c");
+        assertEquals(0, heavyCount.get());
+        Heavy heavy = c.heavy.get();
+        assertEquals(1, heavyCount.get());
+        assertSame(heavy, c.heavy.get());
+        assertEquals(1, heavyCount.get());
+    }
+
+    /**
+     * 普通依赖构成的循环依赖仍然被检测
+     */
+    @Test
+    public void test3() {
+        Container container = new SimpleContainer();
+        container.registerObject("a", new ConstructorObjectDefinition(B.class, Dependency.id("b")));
+        container.registerObject("b", new ConstructorObjectDefinition(B.class, Dependency.id("a")));
+        assertThrows(CircularDependencyException.class, () -> container.getObject("a"));
+    }
+}
@@ -0,0 +1,150 @@
+package byx.ioc;
+
+import byx.ioc.core.*;
+import byx.ioc.exception.BadDependencyException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 注入延迟初始化代理
+ */
+public class SimpleContainerTest38 {
+    private static final AtomicInteger reportCount = new AtomicInteger();
+
+    private interface Report {
+        String render(String name);
+
+        void export() throws IOException;
+
+        default String title() {
+            return "report:" + render("title");
+        }
+    }
+
+    private static class ReportImpl implements Report {
+        private ReportImpl() {
+            reportCount.incrementAndGet();
+        }
+
+        @Override
+        public String render(String name) {
+            return "hello " + name;
+        }
+
+        @Override
+        public void export() throws IOException {
+            throw new IOException("export");
+        }
+    }
+
+    private interface Formatter {
+        static Formatter upperCase() {
+            return String::toUpperCase;
+        }
+
+        String format(String s);
+    }
+
+    private static class Printer {
+        private final Formatter formatter;
+
+        private Printer(Formatter formatter) {
+            this.formatter = formatter;
+        }
+    }
+
+    private static class Service {
+        private final Report report;
+
+        private Service(Report report) {
+            this.report = report;
+        }
+    }
+
+    private static class Admin implements Runnable {
+        private final Service service;
+
+        private Admin(Service service) {
+            this.service = service;
+        }
+
+        @Override
+        public void run() {
+        }
+    }
+
+    @Test
+    public void test1() {
+        reportCount.set(0);
+        Container container = new SimpleContainer();
+        container.registerObject("report", new ConstructorObjectDefinition(ReportImpl.class));
+        container.registerObject("service", new ConstructorObjectDefinition(Service.class, Dependency.lazy(Report.class)));
+
+        Service service = container.getObject("service");
+        assertEquals(0, reportCount.get());
+
+        assertEquals("hello byx", service.report.render("byx"));
+        assertEquals(1, reportCount.get());
+        assertEquals("report:hello title", service.report.title());
+        assertEquals(container.getObject("report").hashCode(), service.report.hashCode());
+        assertEquals(container.getObject("report").toString(), service.report.toString());
+        assertEquals(service.report, service.report);
+        assertEquals(1, reportCount.get());
+
+        // 受检异常原样抛出
+        IOException e = assertThrows(IOException.class, () -> service.report.export());
+        assertEquals("export", e.getMessage());
+    }
+
+    /**
+     * 通过延迟初始化代理打破构造函数之间的循环依赖
+     */
+    @Test
+    public void test2() {
+        Container container = new SimpleContainer();
+        container.registerObject("admin", new ConstructorObjectDefinition(Admin.class, Dependency.id("service")));
+        container.registerObject("service", new ConstructorObjectDefinition(Service.class, Dependency.lazy("report", Report.class)));
+        container.registerObject("report", new ConstructorObjectDefinition(ReportImpl.class));
+
+        Admin admin = container.getObject("admin");
+        assertEquals("hello byx", admin.service.report.render("byx"));
+    }
+
+    /**
+     * 只支持接口类型
+     */
+    @Test
+    public void test3() {
+        Container container = new SimpleContainer();
+        container.registerObject("report", new ConstructorObjectDefinition(ReportImpl.class));
+        container.registerObject("service", new ConstructorObjectDefinition(Service.class, Dependency.lazy(ReportImpl.class)));
+        assertThrows(BadDependencyException.class, () -> container.getObject("service"));
+    }
+
+    /**
+     * 接口中包含静态方法
+     */
+    @Test
+    public void test4() {
+        Container container = new SimpleContainer();
+        container.registerObject("formatter", new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return Formatter.class;
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                return Formatter.upperCase();
+            }
+        });
+        container.registerObject("printer", new ConstructorObjectDefinition(Printer.class, Dependency.lazy(Formatter.class)));
+
+        Printer printer = container.getObject("printer");
+        assertEquals("HELLO", printer.formatter.format("hello"));
+    }
+}
@@ -0,0 +1,162 @@
+package byx.ioc;
+
+import byx.ioc.core.*;
+import byx.ioc.exception.BadDependencyException;
+import byx.ioc.exception.CircularDependencyException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 注入指定类型的所有对象
+ */
+public class SimpleContainerTest39 {
+    private interface Handler {
+        String name();
+    }
+
+    private static class NamedHandler implements Handler {
+        private final String name;
+
+        private NamedHandler(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+    }
+
+    private static class Dispatcher {
+        private final List<Handler> handlers;
+
+        private Dispatcher(List<Handler> handlers) {
+            this.handlers = handlers;
+        }
+    }
+
+    private static class HandlerChain implements Handler {
+        private final List<Handler> handlers;
+
+        private HandlerChain(List<Handler> handlers) {
+            this.handlers = handlers;
+        }
+
+        @Override
+        public String name() {
+            return "[" + names(handlers) + "]";
+        }
+    }
+
+    private static ObjectDefinition handler(String name, int order, Dependency... dependencies) {
+        return new ObjectDefinition() {
+            @Override
+            public Class<?> getType() {
+                return NamedHandler.class;
+            }
+
+            @Override
+            public Dependency[] getInstanceDependencies() {
+                return dependencies;
+            }
+
+            @Override
+            public int getOrder() {
+                return order;
+            }
+
+            @Override
+            public Object getInstance(Object[] params) {
+                return new NamedHandler(name);
+            }
+        };
+    }
+
+    private static String names(List<Handler> handlers) {
+        StringBuilder builder = new StringBuilder();
+        for (Handler handler : handlers) {
+            builder.append(handler.name());
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void test1() {
+        Container container = new SimpleContainer();
+        container.registerObject("dispatcher", new ConstructorObjectDefinition(Dispatcher.class, Dependency.all(Handler.class)));
+        container.registerObject("h3", handler("c", 2));
+        container.registerObject("h2", handler("b", 1));
+        container.registerObject("h1", handler("a", 1));
+        container.registerObject("h0", handler("d", 5));
+
+        Dispatcher dispatcher = container.getObject("dispatcher");
+        assertEquals("abcd", names(dispatcher.handlers));
+        assertSame(container.getObject("h1"), dispatcher.handlers.get(0));
+        assertThrows(UnsupportedOperationException.class, () -> dispatcher.handlers.add(new NamedHandler("e")));
+        assertThrows(UnsupportedOperationException.class, () -> dispatcher.handlers.remove(0));
+    }
+
+    @Test
+    public void test2() {
+        Container container = new SimpleContainer();
+        container.registerObject("dispatcher", new ConstructorObjectDefinition(Dispatcher.class, Dependency.all(Handler.class)));
+
+        Dispatcher dispatcher = container.getObject("dispatcher");
+        assertTrue(dispatcher.handlers.isEmpty());
+    }
+
+    @Test
+    public void test3() {
+        Container container = new SimpleContainer();
+        container.registerObject("dispatcher", new ConstructorObjectDefinition(Dispatcher.class, Dependency.all(Handler.class)));
+        container.registerObject("h1", handler("a", 0));
+        container.registerObject("h2", handler("b", 0, Dependency.id("dispatcher")));
+
+        assertThrows(CircularDependencyException.class, () -> container.getObject("dispatcher"));
+    }
+
+    @Test
+    public void test4() {
+        Container parent = new SimpleContainer();
+        parent.registerObject("h1", handler("a", 0));
+        parent.registerObject("h2", handler("b", 2));
+
+        Container child = new SimpleContainer(parent);
+        child.registerObject("dispatcher", new ConstructorObjectDefinition(Dispatcher.class, Dependency.all(Handler.class)));
+        child.registerObject("h2", handler("c", 1));
+
+        Dispatcher dispatcher = child.getObject("dispatcher");
+        assertEquals("ac", names(dispatcher.handlers));
+        assertSame(parent.getObject("h1"), dispatcher.handlers.get(0));
+    }
+
+    @Test
+    public void test5() {
+        Container container = new SimpleContainer();
+        container.registerObject("dispatcher", new ConstructorObjectDefinition(Dispatcher.class, Dependency.all(null)));
+
+        assertThrows(BadDependencyException.class, () -> container.getObject("dispatcher"));
+    }
+
+    /**
+     * 组合对象不包含自身
+     */
+    @Test
+    public void test6() {
+        Container container = new SimpleContainer();
+        container.registerObject("chain", new ConstructorObjectDefinition(HandlerChain.class, Dependency.all(Handler.class)));
+        container.registerObject("h1", handler("a", 0));
+        container.registerObject("h2", handler("b", 1));
+        container.registerObject("dispatcher", new ConstructorObjectDefinition(Dispatcher.class, Dependency.all(Handler.class)));
+
+        HandlerChain chain = container.getObject("chain");
+        assertEquals("[ab]", chain.name());
+
+        Dispatcher dispatcher = container.getObject("dispatcher");
+        assertEquals("[ab]ab", names(dispatcher.handlers));
+        assertSame(chain, dispatcher.handlers.get(0));
+    }
+}
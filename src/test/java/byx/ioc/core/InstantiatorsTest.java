@@ -0,0 +1,52 @@
+package byx.ioc.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Constructor;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 为构造函数生成实例化器
+ */
+public class InstantiatorsTest {
+    private static class A {
+        private final String s;
+
+        private A(String s) {
+            this.s = s;
+        }
+    }
+
+    private static class B {
+        private final int sum;
+
+        private B(int p0, int p1, int p2, int p3, int p4, int p5, int p6) {
+            this.sum = p0 + p1 + p2 + p3 + p4 + p5 + p6;
+        }
+    }
+
+    /**
+     * 私有内部类的构造函数通过LambdaMetafactory生成实例化器
+     */
+    @Test
+    public void test1() throws Exception {
+        Constructor<?> constructor = A.class.getDeclaredConstructor(String.class);
+        Function<Object[], Object> instantiator = Instantiators.create(constructor);
+        assertFalse(instantiator instanceof Instantiators.MethodHandleInstantiator);
+        assertEquals("hello", ((A) instantiator.apply(new Object[]{"hello"})).s);
+    }
+
+    /**
+     * 参数个数超过6时使用MethodHandle
+     */
+    @Test
+    public void test2() throws Exception {
+        Constructor<?> constructor = B.class.getDeclaredConstructor(
+                int.class, int.class, int.class, int.class, int.class, int.class, int.class);
+        Function<Object[], Object> instantiator = Instantiators.create(constructor);
+        assertTrue(instantiator instanceof Instantiators.MethodHandleInstantiator);
+        assertEquals(28, ((B) instantiator.apply(new Object[]{1, 2, 3, 4, 5, 6, 7})).sum);
+    }
+}